@@ -1,13 +1,16 @@
 package io.github.brunoeugeniodev.marketplace.config;
 
-import org.modelmapper.ModelMapper;
-import org.modelmapper.convention.MatchingStrategies;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
 @Configuration
+@EnableScheduling
 public class AppConfig {
 
     @Bean
@@ -15,12 +18,10 @@ public class AppConfig {
         return new BCryptPasswordEncoder();
     }
 
-    @Bean
-    public ModelMapper modelMapper() {
-        ModelMapper modelMapper = new ModelMapper();
-        modelMapper.getConfiguration()
-                .setMatchingStrategy(MatchingStrategies.STRICT)
-                .setSkipNullEnabled(true);
-        return modelMapper;
+    // Threads virtuais para as consultas paralelas da busca unificada;
+    // a concorrência real no banco continua limitada pelo pool de conexões
+    @Bean(destroyMethod = "close")
+    public ExecutorService buscaExecutor() {
+        return Executors.newVirtualThreadPerTaskExecutor();
     }
 }
\ No newline at end of file
@@ -1,6 +1,8 @@
 package io.github.brunoeugeniodev.marketplace.config;
 
 import io.github.brunoeugeniodev.marketplace.service.UsuarioService;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -30,6 +32,7 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
 
     private final JwtUtil jwtUtil;
     private final UsuarioService usuarioService;
+    private final PrincipalCache principalCache;
 
     @Override
     protected void doFilterInternal(
@@ -48,15 +51,21 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
             if (StringUtils.hasText(jwt)) {
                 log.debug("JWT encontrado na requisição");
 
-                if (jwtUtil.validateToken(jwt)) {
+                // Uma única verificação do token; as claims servem para username e auth_time
+                Claims claims = parseClaims(jwt);
+
+                if (claims != null) {
                     log.debug("JWT válido");
 
-                    String username = jwtUtil.extractUsername(jwt);
+                    String username = claims.getSubject();
                     log.debug("Username extraído: {}", username);
 
                     if (username != null && SecurityContextHolder.getContext().getAuthentication() == null) {
 
-                        UserDetails userDetails = usuarioService.loadUserByUsername(username);
+                        // O principal fica em cache por subject + auth_time; evita ir ao banco a cada requisição
+                        Long authTime = claims.get("auth_time", Long.class);
+                        UserDetails userDetails = principalCache.obter(username, authTime,
+                                () -> usuarioService.loadUserByUsername(username));
                         log.debug("UserDetails carregado: {}", userDetails.getUsername());
 
                         UsernamePasswordAuthenticationToken auth =
@@ -84,6 +93,14 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
         filterChain.doFilter(request, response);
     }
 
+    private Claims parseClaims(String jwt) {
+        try {
+            return jwtUtil.parseAndValidate(jwt);
+        } catch (JwtException e) {
+            return null;
+        }
+    }
+
     private String extractJwtFromRequest(HttpServletRequest request) {
         String bearerToken = request.getHeader(AUTHORIZATION_HEADER);
 
@@ -0,0 +1,144 @@
+package io.github.brunoeugeniodev.marketplace.config;
+
+import io.jsonwebtoken.Claims;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Cache dos tokens já verificados pelo {@link JwtUtil}: o front manda o mesmo bearer token dezenas
+ * de vezes por minuto, e cada verificação refaz Base64, parse do JSON e HMAC. Só entram tokens válidos,
+ * e cada entrada vale até o exp do próprio token.
+ * <p>
+ * A chave é o próprio token (lookup pelo hashCode, conferido com equals na string inteira). Um digest
+ * criptográfico custaria tanto quanto o HMAC que estamos evitando, e um hash truncado permitiria colisão
+ * entre tokens diferentes.
+ * <p>
+ * Um acerto não trava nada: é um get no ConcurrentHashMap e a gravação do instante de acesso na entrada.
+ * O LRU é aproximado: quando o cache passa do limite, uma única thread descarta os vencidos e, se ainda
+ * precisar, os menos acessados até sobrar {@link #FRACAO_APOS_LIMPEZA} do limite, para a limpeza não
+ * rodar a cada token novo.
+ */
+@Component
+@Slf4j
+public class JwtClaimsCache {
+
+    @Value("${jwt.claims-cache.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${jwt.claims-cache.max-entries:1000}")
+    private int maxEntradas;
+
+    private static final double FRACAO_APOS_LIMPEZA = 0.9;
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+    private final AtomicBoolean limpando = new AtomicBoolean();
+
+    private final AtomicLong acertos = new AtomicLong();
+    private final AtomicLong falhas = new AtomicLong();
+    // Só verificações bem-sucedidas: falhas incluem tokens inválidos, que não passam por guardar
+    private final AtomicLong verificacoes = new AtomicLong();
+    private final AtomicLong nanosVerificacao = new AtomicLong();
+
+    // Retorna null quando o token não está no cache ou já passou do exp
+    public Claims obter(String token) {
+        if (!habilitado) {
+            return null;
+        }
+
+        long agora = System.currentTimeMillis();
+        Entrada entrada = entradas.get(token);
+        if (entrada != null && entrada.expiraEm > agora) {
+            // Mesmo token em várias threads no mesmo milissegundo: não regrava o campo compartilhado
+            if (entrada.ultimoAcesso != agora) {
+                entrada.ultimoAcesso = agora;
+            }
+            acertos.incrementAndGet();
+            return entrada.claims;
+        }
+        if (entrada != null) {
+            entradas.remove(token, entrada);
+        }
+
+        falhas.incrementAndGet();
+        return null;
+    }
+
+    // Chamado pelo JwtUtil depois de uma verificação bem-sucedida, com o tempo que ela levou
+    public void guardar(String token, Claims claims, long nanosGastos) {
+        verificacoes.incrementAndGet();
+        nanosVerificacao.addAndGet(nanosGastos);
+
+        if (!habilitado || claims.getExpiration() == null) {
+            return;
+        }
+
+        long agora = System.currentTimeMillis();
+        entradas.put(token, new Entrada(claims, claims.getExpiration().getTime(), agora));
+        if (entradas.size() > maxEntradas && limpando.compareAndSet(false, true)) {
+            try {
+                liberarEspaco(agora);
+            } finally {
+                limpando.set(false);
+            }
+        }
+    }
+
+    public Map<String, Object> estatisticas() {
+        long hits = acertos.get();
+        long misses = falhas.get();
+        long total = hits + misses;
+        // Estimativa: cada acerto economiza o tempo médio de uma verificação completa
+        long verificadas = verificacoes.get();
+        double mediaMicros = verificadas > 0 ? nanosVerificacao.get() / 1000.0 / verificadas : 0.0;
+
+        return Map.of(
+                "habilitado", habilitado,
+                "entradas", entradas.size(),
+                "acertos", hits,
+                "falhas", misses,
+                "verificacoes", verificadas,
+                "taxaAcerto", total > 0 ? (double) hits / total : 0.0,
+                "mediaVerificacaoMicros", mediaMicros,
+                "tempoEconomizadoMs", hits * mediaMicros / 1000.0
+        );
+    }
+
+    // Remove os vencidos; se não bastar, os acessados há mais tempo (pelo instante de acesso no momento da
+    // cópia: um acerto concorrente pode salvar ou não a entrada, o que não muda o limite)
+    private void liberarEspaco(long agora) {
+        entradas.values().removeIf(entrada -> entrada.expiraEm <= agora);
+
+        int alvo = (int) (maxEntradas * FRACAO_APOS_LIMPEZA);
+        int excesso = entradas.size() - alvo;
+        if (excesso <= 0) {
+            return;
+        }
+        List<Map.Entry<String, Entrada>> porAcesso = new ArrayList<>(entradas.entrySet());
+        porAcesso.sort(Comparator.comparingLong(e -> e.getValue().ultimoAcesso));
+        for (int i = 0; i < excesso && i < porAcesso.size(); i++) {
+            Map.Entry<String, Entrada> entrada = porAcesso.get(i);
+            entradas.remove(entrada.getKey(), entrada.getValue());
+        }
+    }
+
+    private static final class Entrada {
+        private final Claims claims;
+        private final long expiraEm;
+        private volatile long ultimoAcesso;
+
+        private Entrada(Claims claims, long expiraEm, long ultimoAcesso) {
+            this.claims = claims;
+            this.expiraEm = expiraEm;
+            this.ultimoAcesso = ultimoAcesso;
+        }
+    }
+}
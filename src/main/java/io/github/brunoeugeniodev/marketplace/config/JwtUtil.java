@@ -3,12 +3,15 @@ package io.github.brunoeugeniodev.marketplace.config;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.jsonwebtoken.*;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Component;
 
+import java.nio.charset.StandardCharsets;
 import java.security.Key;
 import java.util.Date;
 import java.util.HashMap;
@@ -18,8 +21,11 @@ import java.util.stream.Collectors;
 
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class JwtUtil {
 
+    private final JwtClaimsCache claimsCache;
+
     @Value("${jwt.secret:mySecretKeyForJWTGenerationInMarketplaceApplication2024}")
     private String secret;
 
@@ -32,14 +38,48 @@ public class JwtUtil {
     @Value("${jwt.issuer:marketplace-api}")
     private String issuer;
 
-    private Key getSigningKey() {
+    // Chave e parser são imutáveis e thread-safe: montados uma vez na subida, não a cada token
+    private Key signingKey;
+    private JwtParser jwtParser;
+
+    @PostConstruct
+    void init() {
         String key = secret;
 
         while (key.length() < 32) {
             key += "0";
         }
 
-        return Keys.hmacShaKeyFor(key.getBytes());
+        signingKey = Keys.hmacShaKeyFor(key.getBytes(StandardCharsets.UTF_8));
+        jwtParser = Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .requireIssuer(issuer)
+                .build();
+    }
+
+    /**
+     * Verifica assinatura, issuer e expiração e devolve as claims, tudo numa única passada.
+     * Use as claims retornadas em vez de chamar validateToken/extractUsername em sequência,
+     * que verificariam o mesmo token mais de uma vez.
+     *
+     * @throws JwtException se o token for inválido ou estiver expirado
+     */
+    public Claims parseAndValidate(String token) {
+        // Token repetido e ainda dentro do exp: devolve as claims já verificadas, sem refazer o HMAC
+        Claims emCache = claimsCache.obter(token);
+        if (emCache != null) {
+            return emCache;
+        }
+
+        try {
+            long inicio = System.nanoTime();
+            Claims claims = jwtParser.parseClaimsJws(token).getBody();
+            claimsCache.guardar(token, claims, System.nanoTime() - inicio);
+            return claims;
+        } catch (JwtException e) {
+            log.warn("Token inválido: {}", e.getMessage());
+            throw e;
+        }
     }
 
     public String extractUsername(String token) {
@@ -51,22 +91,7 @@ public class JwtUtil {
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> resolver) {
-        return resolver.apply(extractAllClaims(token));
-    }
-
-    private Claims extractAllClaims(String token) {
-        try {
-            return Jwts.parserBuilder()
-                    .setSigningKey(getSigningKey())
-                    .requireIssuer(issuer)
-                    .build()
-                    .parseClaimsJws(token)
-                    .getBody();
-
-        } catch (JwtException e) {
-            log.warn("Token inválido: {}", e.getMessage());
-            throw e;
-        }
+        return resolver.apply(parseAndValidate(token));
     }
 
     // TOKEN DE ACESSO - CORRIGIDO PARA INCLUIR MAIS INFORMAÇÕES
@@ -91,7 +116,7 @@ public class JwtUtil {
                 .setIssuer(issuer)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + expiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
@@ -107,13 +132,13 @@ public class JwtUtil {
                 .setIssuer(issuer)
                 .setIssuedAt(new Date())
                 .setExpiration(new Date(System.currentTimeMillis() + refreshExpiration))
-                .signWith(getSigningKey(), SignatureAlgorithm.HS256)
+                .signWith(signingKey, SignatureAlgorithm.HS256)
                 .compact();
     }
 
     public boolean validateToken(String token) {
         try {
-            extractAllClaims(token);
+            parseAndValidate(token);
             return true;
         } catch (JwtException e) {
             log.warn("Token validation failed: {}", e.getMessage());
@@ -124,14 +149,22 @@ public class JwtUtil {
     // Método para verificar se token está prestes a expirar
     public Long getTimeUntilExpiration(String token) {
         try {
-            Date exp = extractExpiration(token);
-            long now = System.currentTimeMillis();
-            return Math.max(0, exp.getTime() - now);
+            return getTimeUntilExpiration(parseAndValidate(token));
         } catch (JwtException e) {
             return 0L;
         }
     }
 
+    // Validade do token de acesso em ms, a mesma usada no exp do generateToken
+    public long getExpirationMs() {
+        return expiration;
+    }
+
+    public Long getTimeUntilExpiration(Claims claims) {
+        long now = System.currentTimeMillis();
+        return Math.max(0, claims.getExpiration().getTime() - now);
+    }
+
     // Método para decodificar token sem validação (apenas para debug)
     public Map<String, Object> decodeTokenForDebug(String token) {
         try {
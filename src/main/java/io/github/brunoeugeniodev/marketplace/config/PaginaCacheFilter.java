@@ -0,0 +1,86 @@
+package io.github.brunoeugeniodev.marketplace.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+
+import java.io.IOException;
+import java.util.regex.Pattern;
+
+/**
+ * Cache de saída das páginas públicas do PaginaController (/, /lojas, /loja/{id} e /destaques).
+ * Roda depois da cadeia do Spring Security (filtro comum, ordem padrão), então o estado de login já
+ * está no SecurityContext. Respostas do cache saem com ETag/Last-Modified e viram 304 quando o
+ * navegador já tem a mesma versão.
+ */
+@Component
+@RequiredArgsConstructor
+public class PaginaCacheFilter extends OncePerRequestFilter {
+
+    private static final Pattern PAGINAS_CACHEAVEIS = Pattern.compile("^/(lojas|destaques|loja/\\d+)?$");
+
+    private final PaginaHtmlCache paginaHtmlCache;
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        // Query string fica de fora: essas páginas não usam parâmetros e cada variação seria uma entrada nova
+        return !paginaHtmlCache.isHabilitado()
+                || !HttpMethod.GET.matches(request.getMethod())
+                || request.getQueryString() != null
+                || !PAGINAS_CACHEAVEIS.matcher(request.getRequestURI()).matches();
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        String chave = PaginaHtmlCache.chave(request.getRequestURI(), usuarioLogado());
+
+        PaginaHtmlCache.Pagina pagina = paginaHtmlCache.obter(chave);
+        if (pagina == null) {
+            ContentCachingResponseWrapper resposta = new ContentCachingResponseWrapper(response);
+            filterChain.doFilter(request, resposta);
+
+            String contentType = resposta.getContentType();
+            if (resposta.getStatus() != HttpServletResponse.SC_OK || contentType == null
+                    || !MediaType.TEXT_HTML.isCompatibleWith(MediaType.parseMediaType(contentType))) {
+                resposta.copyBodyToResponse();
+                return;
+            }
+            // O corpo ficou só no wrapper; a resposta sai pelo mesmo caminho de um acerto
+            pagina = paginaHtmlCache.guardar(chave, resposta.getContentAsByteArray(), contentType);
+        }
+
+        // no-cache: o navegador guarda, mas revalida a cada navegação (o login pode ter mudado)
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "no-cache");
+        if (new ServletWebRequest(request, response).checkNotModified(pagina.etag(), pagina.geradaEm())) {
+            return;
+        }
+
+        response.setContentType(pagina.contentType());
+        response.setContentLength(pagina.conteudo().length);
+        response.getOutputStream().write(pagina.conteudo());
+    }
+
+    // Mesma regra do addLoginStatus do PaginaController
+    private static boolean usuarioLogado() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        return authentication != null && authentication.isAuthenticated()
+                && authentication.getPrincipal() instanceof UserDetails;
+    }
+}
@@ -0,0 +1,127 @@
+package io.github.brunoeugeniodev.marketplace.config;
+
+import io.github.brunoeugeniodev.marketplace.event.LojaAlteradaEvent;
+import io.github.brunoeugeniodev.marketplace.event.PrecoEstoqueAlteradoEvent;
+import io.github.brunoeugeniodev.marketplace.event.ProdutoAlteradoEvent;
+import io.github.brunoeugeniodev.marketplace.event.VitrineAtualizadaEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.util.DigestUtils;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * HTML já renderizado das páginas públicas, usado pelo {@link PaginaCacheFilter}. A chave é o caminho
+ * mais o estado de login: o cabeçalho e o rodapé são iguais para todo mundo (o nome do usuário é
+ * preenchido pelo global.js), e o único trecho que muda com o login é a seção de favoritos da home.
+ * <p>
+ * Qualquer alteração de loja ou produto descarta tudo, porque /lojas, /loja/{id} e a home dependem de
+ * várias lojas e produtos ao mesmo tempo. O TTL limita o atraso de mudanças que não publicam evento
+ * (ex.: baixa de estoque no checkout).
+ */
+@Component
+@Slf4j
+public class PaginaHtmlCache {
+
+    @Value("${pagina-cache.enabled:true}")
+    private boolean habilitado;
+
+    @Value("${pagina-cache.max-entries:500}")
+    private int maxEntradas;
+
+    @Value("${pagina-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    // accessOrder = true: cada get move a entrada para o fim, então a mais antiga é a menos usada
+    private final LinkedHashMap<String, Pagina> paginas = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Pagina> eldest) {
+            return size() > maxEntradas;
+        }
+    };
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public static String chave(String caminho, boolean logado) {
+        return caminho + (logado ? "|logado" : "|anonimo");
+    }
+
+    // Retorna null quando a página não está no cache ou passou do TTL
+    public Pagina obter(String chave) {
+        long agora = System.currentTimeMillis();
+        lock.lock();
+        try {
+            Pagina pagina = paginas.get(chave);
+            if (pagina != null && agora - pagina.geradaEm() < ttlMs) {
+                return pagina;
+            }
+            if (pagina != null) {
+                paginas.remove(chave);
+            }
+            return null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Pagina guardar(String chave, byte[] conteudo, String contentType) {
+        Pagina pagina = new Pagina(conteudo, contentType,
+                "\"" + DigestUtils.md5DigestAsHex(conteudo) + "\"",
+                // Last-Modified tem resolução de segundos
+                System.currentTimeMillis() / 1000 * 1000);
+        lock.lock();
+        try {
+            paginas.put(chave, pagina);
+        } finally {
+            lock.unlock();
+        }
+        return pagina;
+    }
+
+    public void invalidar() {
+        lock.lock();
+        try {
+            if (!paginas.isEmpty()) {
+                log.debug("Cache de páginas invalidado ({} entradas)", paginas.size());
+                paginas.clear();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProdutoAlterado(ProdutoAlteradoEvent evento) {
+        invalidar();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPrecoEstoqueAlterado(PrecoEstoqueAlteradoEvent evento) {
+        invalidar();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLojaAlterada(LojaAlteradaEvent evento) {
+        invalidar();
+    }
+
+    // A home e /destaques vêm do snapshot da vitrine, que é refeito alguns segundos depois do evento;
+    // sem isso o HTML renderizado com o snapshot antigo ficaria no cache até o TTL
+    @EventListener
+    public void onVitrineAtualizada(VitrineAtualizadaEvent evento) {
+        invalidar();
+    }
+
+    public record Pagina(byte[] conteudo, String contentType, String etag, long geradaEm) {
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.brunoeugeniodev.marketplace.config;
+
+import io.github.brunoeugeniodev.marketplace.event.UsuarioAlteradoEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.core.userdetails.UserDetails;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache dos principais autenticados usado pelo {@link JwtAuthenticationFilter}, para não consultar
+ * o usuário e as roles no banco a cada requisição. A chave é o subject do token junto com o auth_time,
+ * então um novo login gera uma entrada nova. As entradas expiram pelo TTL e o tamanho é limitado.
+ * O UsuarioService invalida o usuário (via {@link UsuarioAlteradoEvent}) quando ele é desativado,
+ * muda de roles, de senha ou de email.
+ */
+@Component
+@Slf4j
+public class PrincipalCache {
+
+    private final Map<String, Entrada> entradas = new ConcurrentHashMap<>();
+
+    @Value("${jwt.principal-cache.ttl-ms:60000}")
+    private long ttlMs;
+
+    @Value("${jwt.principal-cache.max-entries:10000}")
+    private int maxEntradas;
+
+    public UserDetails obter(String username, Long authTime, Supplier<UserDetails> carregar) {
+        String chave = chave(username, authTime);
+        long agora = System.currentTimeMillis();
+
+        Entrada entrada = entradas.get(chave);
+        if (entrada != null && entrada.expiraEm() > agora) {
+            return entrada.userDetails();
+        }
+
+        UserDetails userDetails = carregar.get();
+        if (entradas.size() >= maxEntradas) {
+            liberarEspaco(agora);
+        }
+        entradas.put(chave, new Entrada(userDetails, agora + ttlMs));
+        return userDetails;
+    }
+
+    public void invalidar(String username) {
+        String prefixo = username + "|";
+        entradas.keySet().removeIf(chave -> chave.startsWith(prefixo));
+        log.debug("Principal removido do cache: {}", username);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsuarioAlterado(UsuarioAlteradoEvent evento) {
+        invalidar(evento.getEmail());
+    }
+
+    // Remove as entradas vencidas; se ainda estiver cheio, descarta entradas quaisquer até caber
+    private void liberarEspaco(long agora) {
+        entradas.values().removeIf(entrada -> entrada.expiraEm() <= agora);
+
+        Iterator<String> chaves = entradas.keySet().iterator();
+        while (entradas.size() >= maxEntradas && chaves.hasNext()) {
+            chaves.next();
+            chaves.remove();
+        }
+    }
+
+    private static String chave(String username, Long authTime) {
+        return username + "|" + (authTime != null ? authTime : 0L);
+    }
+
+    private record Entrada(UserDetails userDetails, long expiraEm) {
+    }
+}
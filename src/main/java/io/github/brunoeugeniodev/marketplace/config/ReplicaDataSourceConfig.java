@@ -0,0 +1,77 @@
+package io.github.brunoeugeniodev.marketplace.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.List;
+
+// Réplicas de leitura (datasource.replicas.*). Desligado, vale o DataSource único do Spring Boot
+@Configuration
+@ConditionalOnProperty(name = "datasource.replicas.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+    // Falha rápido ao pegar conexão de réplica: a leitura cai para o primário em vez de esperar o pool
+    private static final long TIMEOUT_CONEXAO_REPLICA_MS = 2000;
+
+    @Value("${datasource.replicas.urls}")
+    private List<String> urls;
+
+    @Value("${datasource.replicas.pool-maximo:10}")
+    private int poolMaximo;
+
+    @Value("${datasource.replicas.atraso-maximo-ms:2000}")
+    private long atrasoMaximoMs;
+
+    @Value("${datasource.replicas.janela-leitura-propria-ms:5000}")
+    private long janelaLeituraPropriaMs;
+
+    // Mesmas propriedades spring.datasource.* e spring.datasource.hikari.* do DataSource padrão
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primarioDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primario");
+        return dataSource;
+    }
+
+    @Bean
+    public RoteamentoDataSource roteamentoDataSource(HikariDataSource primarioDataSource,
+                                                     DataSourceProperties properties) {
+        List<HikariDataSource> replicas = new ArrayList<>();
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource replica = new HikariDataSource();
+            replica.setPoolName("replica-" + (i + 1));
+            replica.setJdbcUrl(urls.get(i).trim());
+            replica.setUsername(properties.determineUsername());
+            replica.setPassword(properties.determinePassword());
+            replica.setMaximumPoolSize(poolMaximo);
+            replica.setReadOnly(true);
+            replica.setConnectionTimeout(TIMEOUT_CONEXAO_REPLICA_MS);
+            // Réplica fora do ar na subida não impede a aplicação de subir; ela só fica fora do rodízio
+            replica.setInitializationFailTimeout(-1);
+            replicas.add(replica);
+        }
+        return new RoteamentoDataSource(primarioDataSource, replicas, atrasoMaximoMs, janelaLeituraPropriaMs);
+    }
+
+    // O DataSource usado pelo JPA, pelo spring.sql.init e pelo resto da aplicação
+    @Bean
+    @Primary
+    public DataSource dataSource(RoteamentoDataSource roteamentoDataSource) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(roteamentoDataSource);
+        // Padrões do Postgres/Hikari; informados para o proxy não abrir uma conexão só para descobri-los
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        return proxy;
+    }
+}
@@ -0,0 +1,322 @@
+package io.github.brunoeugeniodev.marketplace.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Envia as transações {@code readOnly} para as réplicas de leitura (em rodízio) e todo o resto para o primário.
+ * A decisão é tomada quando a conexão física é pedida, por isso este DataSource fica atrás de um
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}: o Hibernate abre a conexão no
+ * begin, antes de o Spring marcar a transação como read-only, e o proxy adia isso até o primeiro SQL.
+ * <ul>
+ *   <li>Réplica fora do ar, fora de recuperação (não é réplica, ou foi promovida), com o receptor de WAL
+ *   parado ou com atraso acima do limite sai do rodízio até a próxima verificação; sem réplica disponível
+ *   a leitura vai para o primário. O atraso é zero quando a réplica já aplicou a posição de WAL que o
+ *   primário tinha no início da verificação; senão, é o tempo desde a última transação aplicada. Ver o status do receptor exige pg_read_all_stats (ou superusuário)
+ *   para o usuário das réplicas.</li>
+ *   <li>Depois do commit de uma transação que gravou no primário, as leituras do mesmo usuário vão para o
+ *   primário durante a janela configurada, para ele ver o que acabou de gravar mesmo com a réplica atrasada.
+ *   Conta como escrita todo comando que não seja uma leitura conhecida (SELECT, SHOW, VALUES, TABLE), e o
+ *   WITH cujo corpo tenha INSERT, UPDATE, DELETE ou MERGE. Transações sem readOnly que só leem não abrem
+ *   a janela. A janela fica em memória: com várias instâncias vale só na instância que recebeu a escrita.</li>
+ * </ul>
+ */
+@Slf4j
+public class RoteamentoDataSource extends AbstractDataSource {
+
+    private static final String CONSULTA_POSICAO_PRIMARIO = "SELECT pg_wal_lsn_diff(pg_current_wal_lsn(), '0/0')";
+
+    // Posições de WAL em bytes desde 0/0, para comparar com a do primário
+    private static final String CONSULTA_REPLICA =
+            "SELECT pg_is_in_recovery(), " +
+            "    (SELECT status FROM pg_stat_wal_receiver), " +
+            "    pg_wal_lsn_diff(pg_last_wal_replay_lsn(), '0/0'), " +
+            "    COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000, 0)";
+
+    private static final Set<String> COMANDOS_DE_LEITURA = Set.of("select", "show", "values", "table");
+
+    // Parênteses e comentários antes do primeiro comando
+    private static final Pattern PREFIXO = Pattern.compile("^(?:\\s+|\\(|/\\*.*?\\*/|--[^\\n]*)*", Pattern.DOTALL);
+
+    // No WITH, na dúvida é escrita: uma palavra dessas num literal só manda leituras ao primário à toa
+    private static final Pattern ESCRITA_NO_WITH =
+            Pattern.compile("\\b(?:insert|update|delete|merge)\\b", Pattern.CASE_INSENSITIVE);
+
+    private final DataSource primario;
+    private final List<Replica> replicas;
+    private final long atrasoMaximoMs;
+    private final long janelaLeituraPropriaMs;
+
+    private final AtomicInteger proximaReplica = new AtomicInteger();
+    private final Map<String, Long> leituraNoPrimarioAte = new ConcurrentHashMap<>();
+
+    public RoteamentoDataSource(DataSource primario, List<HikariDataSource> replicas,
+                                long atrasoMaximoMs, long janelaLeituraPropriaMs) {
+        this.primario = primario;
+        this.replicas = replicas.stream().map(Replica::new).toList();
+        this.atrasoMaximoMs = atrasoMaximoMs;
+        // Uma réplica aceita no rodízio pode estar até atrasoMaximoMs atrás; a janela precisa cobrir isso
+        this.janelaLeituraPropriaMs = Math.max(janelaLeituraPropriaMs, atrasoMaximoMs);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        if (TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            Replica replica = escolherReplica();
+            if (replica != null) {
+                try {
+                    return replica.dataSource.getConnection();
+                } catch (SQLException e) {
+                    replica.marcarIndisponivel("falha ao conectar", e.getMessage());
+                }
+            }
+            return primario.getConnection();
+        }
+        return observarEscritas(primario.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return primario.getConnection(username, password);
+    }
+
+    @Scheduled(fixedDelayString = "${datasource.replicas.verificacao-ms:5000}")
+    public void verificarReplicas() {
+        Long posicaoPrimario = posicaoPrimario();
+        replicas.forEach(replica -> verificar(replica, posicaoPrimario));
+
+        long agora = System.currentTimeMillis();
+        leituraNoPrimarioAte.values().removeIf(ate -> ate <= agora);
+    }
+
+    // Os pools das réplicas são criados aqui; o do primário é um bean e o Spring fecha
+    public void close() {
+        replicas.forEach(replica -> replica.dataSource.close());
+    }
+
+    public Map<String, Object> estado() {
+        Map<String, Object> estado = new LinkedHashMap<>();
+        for (Replica replica : replicas) {
+            Map<String, Object> dados = new LinkedHashMap<>();
+            dados.put("disponivel", replica.disponivel);
+            dados.put("atrasoMs", replica.atrasoMs);
+            dados.put("motivo", replica.motivo);
+            estado.put(replica.dataSource.getPoolName(), dados);
+        }
+        return Map.of(
+                "atrasoMaximoMs", atrasoMaximoMs,
+                "janelaLeituraPropriaMs", janelaLeituraPropriaMs,
+                "usuariosNoPrimario", leituraNoPrimarioAte.size(),
+                "replicas", estado
+        );
+    }
+
+    private Replica escolherReplica() {
+        String usuario = usuarioAtual();
+        if (usuario != null) {
+            Long ate = leituraNoPrimarioAte.get(usuario);
+            if (ate != null && ate > System.currentTimeMillis()) {
+                return null;
+            }
+        }
+
+        List<Replica> disponiveis = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.disponivel) {
+                disponiveis.add(replica);
+            }
+        }
+        if (disponiveis.isEmpty()) {
+            return null;
+        }
+        return disponiveis.get(Math.floorMod(proximaReplica.getAndIncrement(), disponiveis.size()));
+    }
+
+    /**
+     * Conexão do primário numa transação de usuário autenticado: o primeiro comando de escrita preparado
+     * nela registra a janela de leitura no primário. Comandos preparados cobrem o Hibernate e o
+     * JdbcTemplate com parâmetros; os Statements simples também são observados.
+     */
+    private Connection observarEscritas(Connection conexao) {
+        String usuario = usuarioAtual();
+        if (usuario == null || !TransactionSynchronizationManager.isActualTransactionActive()
+                || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return conexao;
+        }
+        AtomicBoolean registrada = new AtomicBoolean();
+        Runnable aoEscrever = () -> {
+            if (registrada.compareAndSet(false, true)) {
+                registrarEscrita(usuario);
+            }
+        };
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, metodo, args) -> {
+                    String nome = metodo.getName();
+                    if ((nome.equals("prepareStatement") || nome.equals("prepareCall")) && escreve(args[0])) {
+                        aoEscrever.run();
+                    }
+                    Object resultado = invocar(conexao, metodo, args);
+                    if (nome.equals("createStatement")) {
+                        return observarEscritas((Statement) resultado, aoEscrever);
+                    }
+                    return resultado;
+                });
+    }
+
+    private static Statement observarEscritas(Statement statement, Runnable aoEscrever) {
+        return (Statement) Proxy.newProxyInstance(Statement.class.getClassLoader(), new Class<?>[]{Statement.class},
+                (proxy, metodo, args) -> {
+                    String nome = metodo.getName();
+                    if ((nome.startsWith("execute") || nome.equals("addBatch")) && args != null && escreve(args[0])) {
+                        aoEscrever.run();
+                    }
+                    return invocar(statement, metodo, args);
+                });
+    }
+
+    private static Object invocar(Object alvo, Method metodo, Object[] args) throws Throwable {
+        try {
+            return metodo.invoke(alvo, args);
+        } catch (InvocationTargetException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static boolean escreve(Object sql) {
+        if (!(sql instanceof String texto)) {
+            return false;
+        }
+        String corpo = PREFIXO.matcher(texto).replaceFirst("");
+        String comando = corpo.split("[\\s(]+", 2)[0].toLowerCase(Locale.ROOT);
+        if (comando.equals("with")) {
+            return ESCRITA_NO_WITH.matcher(corpo).find();
+        }
+        return !COMANDOS_DE_LEITURA.contains(comando);
+    }
+
+    // A janela começa no commit, não na escrita: a réplica só pode receber a escrita depois dele
+    private void registrarEscrita(String usuario) {
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                leituraNoPrimarioAte.put(usuario, System.currentTimeMillis() + janelaLeituraPropriaMs);
+            }
+        });
+    }
+
+    // Lida antes das réplicas: se uma réplica já aplicou esta posição, ela está em dia. Null se o primário
+    // não responder
+    private Long posicaoPrimario() {
+        try (Connection conexao = primario.getConnection();
+             Statement statement = conexao.createStatement();
+             ResultSet resultado = statement.executeQuery(CONSULTA_POSICAO_PRIMARIO)) {
+            resultado.next();
+            return resultado.getLong(1);
+        } catch (SQLException e) {
+            log.warn("Falha ao ler a posição de WAL do primário: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    private void verificar(Replica replica, Long posicaoPrimario) {
+        try (Connection conexao = replica.dataSource.getConnection();
+             Statement statement = conexao.createStatement();
+             ResultSet resultado = statement.executeQuery(CONSULTA_REPLICA)) {
+            resultado.next();
+            // Um servidor fora de recuperação não recebe o WAL do primário: pode ser outro banco ou uma
+            // réplica promovida, e as leituras nele não veriam as escritas
+            if (!resultado.getBoolean(1)) {
+                replica.marcarIndisponivel("não está em recuperação",
+                        "pg_is_in_recovery = false; confira se é mesmo uma réplica do primário");
+                return;
+            }
+
+            // Com o receptor parado, o que já foi recebido fica todo aplicado e a réplica parece em dia
+            String statusReceptor = resultado.getString(2);
+            if (!"streaming".equals(statusReceptor)) {
+                replica.marcarIndisponivel("receptor de WAL parado",
+                        "status do receptor de WAL: " + (statusReceptor != null ? statusReceptor
+                                : "ausente ou sem permissão de leitura (pg_read_all_stats)"));
+                return;
+            }
+
+            long posicaoAplicada = resultado.getLong(3);
+            long atraso = posicaoPrimario != null && posicaoAplicada >= posicaoPrimario
+                    ? 0
+                    : (long) resultado.getDouble(4);
+            replica.atrasoMs = atraso;
+            if (atraso > atrasoMaximoMs) {
+                replica.marcarIndisponivel("atraso acima do limite", "atraso de " + atraso + " ms");
+            } else {
+                replica.marcarDisponivel();
+            }
+        } catch (SQLException e) {
+            replica.marcarIndisponivel("falha na verificação", e.getMessage());
+        }
+    }
+
+    private static String usuarioAtual() {
+        Authentication autenticacao = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacao == null || !autenticacao.isAuthenticated()
+                || autenticacao instanceof AnonymousAuthenticationToken) {
+            return null;
+        }
+        return autenticacao.getName();
+    }
+
+    private static class Replica {
+
+        private final HikariDataSource dataSource;
+        // Começa fora do rodízio: só entra depois da primeira verificação de atraso
+        private volatile boolean disponivel;
+        private volatile long atrasoMs = -1;
+        // Só a categoria, que aparece em /api/debug/replicas; o detalhe (mensagens do driver) fica no log
+        private volatile String motivo = "ainda não verificada";
+
+        Replica(HikariDataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        void marcarDisponivel() {
+            if (!disponivel) {
+                log.info("{} de volta ao rodízio de leitura (atraso {} ms)", dataSource.getPoolName(), atrasoMs);
+            }
+            disponivel = true;
+            motivo = null;
+        }
+
+        void marcarIndisponivel(String motivo, String detalhe) {
+            if (disponivel || !motivo.equals(this.motivo)) {
+                log.warn("{} fora do rodízio de leitura: {} ({})", dataSource.getPoolName(), motivo, detalhe);
+            }
+            disponivel = false;
+            this.motivo = motivo;
+        }
+    }
+}
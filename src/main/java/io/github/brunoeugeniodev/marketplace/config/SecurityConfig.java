@@ -41,6 +41,9 @@ public class SecurityConfig {
                         // URLs COMPLETAMENTE PÚBLICAS (sem autenticação)
                         .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
 
+                        // DIAGNÓSTICO RESTRITO: estatísticas internas, antes da liberação de /api/debug/**
+                        .requestMatchers("/api/debug/cache-hibernate", "/api/debug/replicas").hasRole("ADMIN")
+
                         // PÁGINAS PÚBLICAS (qualquer um pode acessar)
                         .requestMatchers(
                                 "/",
@@ -1,15 +1,15 @@
 package io.github.brunoeugeniodev.marketplace.controller;
 
 import io.github.brunoeugeniodev.marketplace.dto.SearchResultDTO;
-import io.github.brunoeugeniodev.marketplace.service.LojaService;
-import io.github.brunoeugeniodev.marketplace.service.ProdutoService;
-import io.github.brunoeugeniodev.marketplace.util.MapperUtil;
+import io.github.brunoeugeniodev.marketplace.dto.SugestaoDTO;
+import io.github.brunoeugeniodev.marketplace.service.BuscaService;
+import io.github.brunoeugeniodev.marketplace.service.SugestaoBuscaIndex;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Map;
+import java.util.List;
 
 @Slf4j
 @RestController
@@ -17,23 +17,34 @@ import java.util.Map;
 @RequiredArgsConstructor
 public class BuscaController {
 
-    private final LojaService lojaService;
-    private final ProdutoService produtoService;
-    private final MapperUtil mapperUtil;
+    private static final int LIMITE_MAXIMO = 50;
+
+    private final BuscaService buscaService;
+    private final SugestaoBuscaIndex sugestaoBuscaIndex;
 
     @GetMapping
-    public ResponseEntity<SearchResultDTO> buscar(@RequestParam String q) {
+    public ResponseEntity<SearchResultDTO> buscar(
+            @RequestParam String q,
+            @RequestParam(required = false) String cursorLojas,
+            @RequestParam(required = false) String cursorProdutos,
+            @RequestParam(defaultValue = "20") int limite) {
         if (q == null || q.trim().isEmpty()) {
             return ResponseEntity.badRequest().build();
         }
 
-        log.info("Realizando busca por: {}", q);
+        int tamanhoPagina = Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+        log.info("Realizando busca por: {} (limite {})", q, tamanhoPagina);
 
-        SearchResultDTO resultado = SearchResultDTO.builder()
-                .lojas(mapperUtil.mapList(lojaService.buscarPorTermo(q), io.github.brunoeugeniodev.marketplace.dto.LojaDTO.class))
-                .produtos(mapperUtil.mapList(produtoService.buscarPorTermo(q), io.github.brunoeugeniodev.marketplace.dto.ProdutoDTO.class))
-                .build();
+        SearchResultDTO resultado = buscaService.buscar(q, cursorLojas, cursorProdutos, tamanhoPagina);
 
         return ResponseEntity.ok(resultado);
     }
-}
\ No newline at end of file
+
+    // Autocomplete da barra de busca, servido só da memória
+    @GetMapping("/sugestoes")
+    public ResponseEntity<List<SugestaoDTO>> sugestoes(
+            @RequestParam String q,
+            @RequestParam(defaultValue = "8") int limite) {
+        return ResponseEntity.ok(sugestaoBuscaIndex.sugerir(q, Math.max(limite, 1)));
+    }
+}
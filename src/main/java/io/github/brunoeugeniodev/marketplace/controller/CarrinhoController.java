@@ -4,18 +4,19 @@ import io.github.brunoeugeniodev.marketplace.dto.CarrinhoDTO;
 import io.github.brunoeugeniodev.marketplace.dto.ItemCarrinhoRequestDTO;
 import io.github.brunoeugeniodev.marketplace.dto.ItemCarrinhoDTO;
 import io.github.brunoeugeniodev.marketplace.models.Carrinho;
-import io.github.brunoeugeniodev.marketplace.models.Usuario;
 import io.github.brunoeugeniodev.marketplace.service.CarrinhoService;
-import io.github.brunoeugeniodev.marketplace.service.UsuarioService;
+import io.github.brunoeugeniodev.marketplace.util.EtagUtil;
 import io.github.brunoeugeniodev.marketplace.util.MapperUtil;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
-import java.util.Optional;
+import java.util.Map;
 
 @Slf4j
 @RestController
@@ -24,18 +25,40 @@ import java.util.Optional;
 public class CarrinhoController {
 
     private final CarrinhoService carrinhoService;
-    private final UsuarioService usuarioService;
     private final MapperUtil mapperUtil;
 
+    // O carrinho é resolvido direto pelo email do principal: sem buscar o usuário antes em cada endpoint
+
+    // carrinho.js recarrega o carrinho com frequência: sem mudança nos itens a resposta é um 304 sem corpo
     @GetMapping
-    public ResponseEntity<CarrinhoDTO> getCarrinho(@AuthenticationPrincipal UserDetails userDetails) {
-        Optional<Usuario> usuario = usuarioService.buscarPorEmail(userDetails.getUsername());
-        if (usuario.isPresent()) {
-            Carrinho carrinho = carrinhoService.obterCarrinhoCompleto(usuario.get());
-            CarrinhoDTO carrinhoDTO = mapperUtil.mapCarrinhoToDTO(carrinho);
-            return ResponseEntity.ok(carrinhoDTO);
+    public ResponseEntity<CarrinhoDTO> getCarrinho(@AuthenticationPrincipal UserDetails userDetails,
+                                                   WebRequest request) {
+        Carrinho carrinho = carrinhoService.obterCarrinhoCompleto(userDetails.getUsername());
+        String etag = EtagUtil.carrinho(carrinho);
+
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(mapperUtil.mapCarrinhoToDTO(carrinho));
+    }
+
+    // Badge do cabeçalho: contador em cache, sem consulta; ETag pelo próprio valor para responder 304
+    @GetMapping("/contador")
+    public ResponseEntity<Map<String, Integer>> contarItens(@AuthenticationPrincipal UserDetails userDetails,
+                                                           WebRequest request) {
+        int totalItens = carrinhoService.contarItensNoCarrinho(userDetails.getUsername());
+        String etag = "\"" + totalItens + "\"";
+
+        if (request.checkNotModified(etag)) {
+            return null;
         }
-        return ResponseEntity.notFound().build();
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache().cachePrivate())
+                .body(Map.of("totalItens", totalItens));
     }
 
     @PostMapping("/itens")
@@ -43,17 +66,12 @@ public class CarrinhoController {
             @AuthenticationPrincipal UserDetails userDetails,
             @RequestBody ItemCarrinhoRequestDTO itemRequest) {
 
-        Optional<Usuario> usuario = usuarioService.buscarPorEmail(userDetails.getUsername());
-        if (usuario.isPresent()) {
-            Carrinho carrinho = carrinhoService.adicionarItem(
-                    usuario.get(),
-                    itemRequest.getProdutoId(),
-                    itemRequest.getQuantidade()
-            );
-            CarrinhoDTO carrinhoDTO = mapperUtil.mapCarrinhoToDTO(carrinho);
-            return ResponseEntity.ok(carrinhoDTO);
-        }
-        return ResponseEntity.notFound().build();
+        Carrinho carrinho = carrinhoService.adicionarItem(
+                userDetails.getUsername(),
+                itemRequest.getProdutoId(),
+                itemRequest.getQuantidade()
+        );
+        return ResponseEntity.ok(mapperUtil.mapCarrinhoToDTO(carrinho));
     }
 
     @DeleteMapping("/itens/{itemId}")
@@ -61,13 +79,8 @@ public class CarrinhoController {
             @AuthenticationPrincipal UserDetails userDetails,
             @PathVariable Long itemId) {
 
-        Optional<Usuario> usuario = usuarioService.buscarPorEmail(userDetails.getUsername());
-        if (usuario.isPresent()) {
-            Carrinho carrinho = carrinhoService.removerItem(usuario.get(), itemId);
-            CarrinhoDTO carrinhoDTO = mapperUtil.mapCarrinhoToDTO(carrinho);
-            return ResponseEntity.ok(carrinhoDTO);
-        }
-        return ResponseEntity.notFound().build();
+        Carrinho carrinho = carrinhoService.removerItem(userDetails.getUsername(), itemId);
+        return ResponseEntity.ok(mapperUtil.mapCarrinhoToDTO(carrinho));
     }
 
     @PutMapping("/itens/{itemId}")
@@ -76,25 +89,13 @@ public class CarrinhoController {
             @PathVariable Long itemId,
             @RequestParam Integer quantidade) {
 
-        Optional<Usuario> usuario = usuarioService.buscarPorEmail(userDetails.getUsername());
-        if (usuario.isPresent()) {
-            Carrinho carrinho = carrinhoService.atualizarQuantidade(
-                    usuario.get(), itemId, quantidade
-            );
-            CarrinhoDTO carrinhoDTO = mapperUtil.mapCarrinhoToDTO(carrinho);
-            return ResponseEntity.ok(carrinhoDTO);
-        }
-        return ResponseEntity.notFound().build();
+        Carrinho carrinho = carrinhoService.atualizarQuantidade(userDetails.getUsername(), itemId, quantidade);
+        return ResponseEntity.ok(mapperUtil.mapCarrinhoToDTO(carrinho));
     }
 
     @PostMapping("/limpar")
     public ResponseEntity<CarrinhoDTO> limparCarrinho(@AuthenticationPrincipal UserDetails userDetails) {
-        Optional<Usuario> usuario = usuarioService.buscarPorEmail(userDetails.getUsername());
-        if (usuario.isPresent()) {
-            Carrinho carrinho = carrinhoService.limparCarrinho(usuario.get());
-            CarrinhoDTO carrinhoDTO = mapperUtil.mapCarrinhoToDTO(carrinho);
-            return ResponseEntity.ok(carrinhoDTO);
-        }
-        return ResponseEntity.notFound().build();
+        Carrinho carrinho = carrinhoService.limparCarrinho(userDetails.getUsername());
+        return ResponseEntity.ok(mapperUtil.mapCarrinhoToDTO(carrinho));
     }
-}
\ No newline at end of file
+}
@@ -1,13 +1,21 @@
 // Crie esta classe no seu projeto
 package io.github.brunoeugeniodev.marketplace.controller.debug;
 
+import io.github.brunoeugeniodev.marketplace.config.JwtClaimsCache;
 import io.github.brunoeugeniodev.marketplace.config.JwtUtil;
+import io.github.brunoeugeniodev.marketplace.config.RoteamentoDataSource;
+import jakarta.persistence.EntityManagerFactory;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
 import java.util.Map;
+import java.util.TreeMap;
 
 @RestController
 @RequestMapping("/api/debug")
@@ -16,6 +24,56 @@ import java.util.Map;
 public class DebugController {
 
     private final JwtUtil jwtUtil;
+    private final JwtClaimsCache jwtClaimsCache;
+    private final EntityManagerFactory entityManagerFactory;
+    private final ObjectProvider<RoteamentoDataSource> roteamentoDataSource;
+
+    @GetMapping("/jwt-cache")
+    public ResponseEntity<Map<String, Object>> jwtCache() {
+        return ResponseEntity.ok(jwtClaimsCache.estatisticas());
+    }
+
+    // Acertos e falhas do cache de segundo nível do Hibernate, por região de entidade e de consulta
+    @GetMapping("/cache-hibernate")
+    public ResponseEntity<Map<String, Object>> cacheHibernate() {
+        Statistics estatisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+        Map<String, Object> regioes = new TreeMap<>();
+        for (String regiao : estatisticas.getSecondLevelCacheRegionNames()) {
+            // Serve tanto para regiões de entidade quanto de consulta; getDomainDataRegionStatistics
+            // lança exceção para as de consulta
+            CacheRegionStatistics regiaoEstatisticas = estatisticas.getCacheRegionStatistics(regiao);
+            if (regiaoEstatisticas != null) {
+                regioes.put(regiao, Map.of(
+                        "acertos", regiaoEstatisticas.getHitCount(),
+                        "falhas", regiaoEstatisticas.getMissCount(),
+                        "gravacoes", regiaoEstatisticas.getPutCount(),
+                        "entradasEmMemoria", regiaoEstatisticas.getElementCountInMemory()
+                ));
+            }
+        }
+
+        return ResponseEntity.ok(Map.of(
+                "habilitado", estatisticas.isStatisticsEnabled(),
+                "acertos", estatisticas.getSecondLevelCacheHitCount(),
+                "falhas", estatisticas.getSecondLevelCacheMissCount(),
+                "consultasAcertos", estatisticas.getQueryCacheHitCount(),
+                "consultasFalhas", estatisticas.getQueryCacheMissCount(),
+                "regioes", regioes
+        ));
+    }
+
+    // Disponibilidade e atraso das réplicas de leitura (só com datasource.replicas.enabled=true)
+    @GetMapping("/replicas")
+    public ResponseEntity<Map<String, Object>> replicas() {
+        RoteamentoDataSource roteamento = roteamentoDataSource.getIfAvailable();
+        if (roteamento == null) {
+            return ResponseEntity.ok(Map.of("habilitado", false));
+        }
+        Map<String, Object> estado = new TreeMap<>(roteamento.estado());
+        estado.put("habilitado", true);
+        return ResponseEntity.ok(estado);
+    }
 
     @GetMapping("/jwt-test")
     public ResponseEntity<Map<String, Object>> jwtTest(@RequestParam(required = false) String token) {
@@ -45,7 +103,9 @@ public class DebugController {
                         "POST /api/auth/login", "Realizar login",
                         "POST /api/auth/registro", "Registrar usuário",
                         "GET /api/auth/me", "Obter dados do usuário logado",
-                        "GET /api/debug/jwt-test?token=XYZ", "Testar um token JWT"
+                        "GET /api/debug/jwt-test?token=XYZ", "Testar um token JWT",
+                        "GET /api/debug/jwt-cache", "Estatísticas do cache de tokens verificados",
+                        "GET /api/debug/cache-hibernate", "Estatísticas do cache de segundo nível"
                 )
         ));
     }
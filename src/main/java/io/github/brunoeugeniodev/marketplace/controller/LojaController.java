@@ -2,6 +2,8 @@ package io.github.brunoeugeniodev.marketplace.controller;
 
 import io.github.brunoeugeniodev.marketplace.dto.LojaCreateDTO;
 import io.github.brunoeugeniodev.marketplace.dto.LojaDTO;
+import io.github.brunoeugeniodev.marketplace.dto.LojaListagemDTO;
+import io.github.brunoeugeniodev.marketplace.dto.PaginaCursorDTO;
 import io.github.brunoeugeniodev.marketplace.dto.ProdutoDTO;
 import io.github.brunoeugeniodev.marketplace.models.Loja;
 import io.github.brunoeugeniodev.marketplace.models.Produto;
@@ -9,6 +11,7 @@ import io.github.brunoeugeniodev.marketplace.models.Usuario;
 import io.github.brunoeugeniodev.marketplace.service.LojaService;
 import io.github.brunoeugeniodev.marketplace.service.ProdutoService;
 import io.github.brunoeugeniodev.marketplace.service.UsuarioService;
+import io.github.brunoeugeniodev.marketplace.util.EtagUtil;
 import io.github.brunoeugeniodev.marketplace.util.MapperUtil;
 
 import jakarta.validation.Valid;
@@ -16,9 +19,7 @@ import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
-
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
@@ -26,6 +27,7 @@ import org.springframework.security.core.Authentication;
 import org.springframework.security.core.annotation.AuthenticationPrincipal;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import java.util.List;
 import java.util.Map;
@@ -37,6 +39,8 @@ import java.util.Optional;
 @RequiredArgsConstructor
 public class LojaController {
 
+    private static final int LIMITE_PRODUTOS = 50;
+
     private final LojaService lojaService;
     private final UsuarioService usuarioService;
     private final ProdutoService produtoService;
@@ -83,7 +87,7 @@ public class LojaController {
     // -----------------------------
     @GetMapping
     public ResponseEntity<List<LojaDTO>> listarLojas() {
-        List<Loja> lojas = lojaService.listarLojasAtivas();
+        List<LojaListagemDTO> lojas = lojaService.listarResumoLojasAtivas();
         return ResponseEntity.ok(mapperUtil.mapList(lojas, LojaDTO.class));
     }
 
@@ -91,19 +95,47 @@ public class LojaController {
     // LISTAR LOJA POR ID
     // -----------------------------
     @GetMapping("/{id}")
-    public ResponseEntity<LojaDTO> listarPorId(@PathVariable Long id) {
-        return lojaService.buscarPorIdAtiva(id)
-                .map(loja -> ResponseEntity.ok(mapperUtil.toLojaDTO(loja)))
-                .orElse(ResponseEntity.notFound().build());
+    public ResponseEntity<LojaDTO> listarPorId(@PathVariable Long id, WebRequest request) {
+        Optional<Loja> lojaOpt = lojaService.buscarPorIdAtiva(id);
+        if (lojaOpt.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
+
+        Loja loja = lojaOpt.get();
+        long quantidadeProdutos = lojaService.contarProdutos(id);
+        String etag = EtagUtil.loja(loja, quantidadeProdutos);
+        long ultimaAlteracao = EtagUtil.ultimaAlteracao(loja.getDataAtualizacao());
+        if (request.checkNotModified(etag, ultimaAlteracao)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .lastModified(ultimaAlteracao)
+                .cacheControl(CacheControl.noCache())
+                .body(mapperUtil.toLojaDTO(loja, quantidadeProdutos));
     }
 
     // -----------------------------
     // LISTAR PRODUTOS DA LOJA
     // -----------------------------
     @GetMapping("/{id}/produtos")
-    public ResponseEntity<List<ProdutoDTO>> listarProdutosDaLoja(@PathVariable Long id) {
-        List<Produto> produtos = produtoService.listarProdutosPorLoja(id);
-        return ResponseEntity.ok(mapperUtil.mapList(produtos, ProdutoDTO.class));
+    public ResponseEntity<PaginaCursorDTO<ProdutoDTO>> listarProdutosDaLoja(
+            @PathVariable Long id,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limite,
+            WebRequest request) {
+        int tamanhoPagina = Math.min(Math.max(limite, 1), LIMITE_PRODUTOS);
+        PaginaCursorDTO<Produto> pagina = produtoService.listarProdutos(
+                ProdutoService.FiltroProdutos.daLoja(id), cursor, tamanhoPagina);
+
+        String etag = EtagUtil.produtos(pagina.getItens(), pagina.getProximoCursor());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(pagina.map(mapperUtil::toProdutoDTO));
     }
 
     // -----------------------------
@@ -111,7 +143,7 @@ public class LojaController {
     // -----------------------------
     @GetMapping("/buscar")
     public ResponseEntity<List<LojaDTO>> buscarLojas(@RequestParam String nome) {
-        List<Loja> lojas = lojaService.buscarPorNome(nome);
+        List<LojaListagemDTO> lojas = lojaService.buscarPorNome(nome);
         return ResponseEntity.ok(mapperUtil.mapList(lojas, LojaDTO.class));
     }
 
@@ -120,8 +152,7 @@ public class LojaController {
     // -----------------------------
     @GetMapping("/recomendadas")
     public ResponseEntity<List<LojaDTO>> listarRecomendadas() {
-        Pageable pageable = PageRequest.of(0, 5);
-        List<Loja> lojas = lojaService.listarLojasRecomendadas(pageable).getContent();
+        List<LojaListagemDTO> lojas = lojaService.listarResumoLojasRecomendadas(5);
         return ResponseEntity.ok(mapperUtil.mapList(lojas, LojaDTO.class));
     }
 
@@ -142,7 +173,7 @@ public class LojaController {
         }
 
         try {
-            List<Loja> lojas = lojaService.listarLojasDoUsuario(usuarioOpt.get());
+            List<LojaListagemDTO> lojas = lojaService.listarLojasDoUsuario(usuarioOpt.get());
             return ResponseEntity.ok(mapperUtil.mapList(lojas, LojaDTO.class));
 
         } catch (Exception e) {
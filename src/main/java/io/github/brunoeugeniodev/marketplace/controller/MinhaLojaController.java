@@ -4,11 +4,15 @@ import io.github.brunoeugeniodev.marketplace.dto.*;
 import io.github.brunoeugeniodev.marketplace.models.Loja;
 import io.github.brunoeugeniodev.marketplace.models.Produto;
 import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.service.AtualizacaoProdutosService;
+import io.github.brunoeugeniodev.marketplace.service.ImportacaoProdutosService;
 import io.github.brunoeugeniodev.marketplace.service.LojaService;
 import io.github.brunoeugeniodev.marketplace.service.ProdutoService;
 import io.github.brunoeugeniodev.marketplace.service.UsuarioService;
 import io.github.brunoeugeniodev.marketplace.util.MapperUtil;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.validation.Valid;
+import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
@@ -17,6 +21,7 @@ import org.springframework.security.core.annotation.AuthenticationPrincipal;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,20 +37,19 @@ public class MinhaLojaController {
     private final LojaService lojaService;
     private final UsuarioService usuarioService;
     private final ProdutoService produtoService;
+    private final ImportacaoProdutosService importacaoProdutosService;
+    private final AtualizacaoProdutosService atualizacaoProdutosService;
     private final MapperUtil mapperUtil;
 
     @GetMapping("/verificar")
     public ResponseEntity<Map<String, Object>> verificarLoja(@AuthenticationPrincipal UserDetails userDetails) {
         Optional<Usuario> usuario = usuarioService.buscarPorEmail(userDetails.getUsername());
         if (usuario.isPresent()) {
-            boolean temLoja = !usuario.get().getLojas().isEmpty();
+            Optional<Loja> loja = lojaService.buscarLojaDoUsuarioComDetalhe(usuario.get());
 
             Map<String, Object> response = new HashMap<>();
-            response.put("temLoja", temLoja);
-            if (temLoja) {
-                Loja loja = usuario.get().getLojas().get(0);
-                response.put("loja", mapperUtil.toLojaDTO(loja));
-            }
+            response.put("temLoja", loja.isPresent());
+            loja.ifPresent(l -> response.put("loja", toLojaDTOComQuantidade(l)));
 
             return ResponseEntity.ok(response);
         }
@@ -55,9 +59,9 @@ public class MinhaLojaController {
     @GetMapping
     public ResponseEntity<?> getMinhaLoja(@AuthenticationPrincipal UserDetails userDetails) {
         Optional<Usuario> usuario = usuarioService.buscarPorEmail(userDetails.getUsername());
-        if (usuario.isPresent() && !usuario.get().getLojas().isEmpty()) {
-            Loja loja = usuario.get().getLojas().get(0);
-            return ResponseEntity.ok(mapperUtil.toLojaDTO(loja));
+        Optional<Loja> loja = usuario.flatMap(lojaService::buscarLojaDoUsuarioComDetalhe);
+        if (loja.isPresent()) {
+            return ResponseEntity.ok(toLojaDTOComQuantidade(loja.get()));
         }
         return ResponseEntity.status(HttpStatus.NOT_FOUND).body(Map.of("error", "Loja não encontrada"));
     }
@@ -74,9 +78,10 @@ public class MinhaLojaController {
                 Loja loja = mapperUtil.toLojaEntity(request);
 
                 // Verificar se usuário já tem loja
-                if (!usuario.get().getLojas().isEmpty()) {
+                Optional<Loja> lojaDoUsuario = lojaService.buscarLojaDoUsuario(usuario.get());
+                if (lojaDoUsuario.isPresent()) {
                     // Atualizar loja existente
-                    Loja lojaExistente = usuario.get().getLojas().get(0);
+                    Loja lojaExistente = lojaDoUsuario.get();
                     Loja lojaAtualizada = mapperUtil.toLojaEntity(request);
                     Loja lojaEditada = lojaService.atualizarLoja(lojaExistente.getId(), lojaAtualizada, usuario.get());
                     LojaDTO lojaDTO = mapperUtil.toLojaDTO(lojaEditada);
@@ -97,8 +102,9 @@ public class MinhaLojaController {
     @GetMapping("/produtos")
     public ResponseEntity<?> getProdutosDaLoja(@AuthenticationPrincipal UserDetails userDetails) {
         Optional<Usuario> usuario = usuarioService.buscarPorEmail(userDetails.getUsername());
-        if (usuario.isPresent() && !usuario.get().getLojas().isEmpty()) {
-            Loja loja = usuario.get().getLojas().get(0);
+        Optional<Loja> lojaDoUsuario = usuario.flatMap(lojaService::buscarLojaDoUsuario);
+        if (lojaDoUsuario.isPresent()) {
+            Loja loja = lojaDoUsuario.get();
             List<Produto> produtos = produtoService.listarProdutosPorLoja(loja.getId());
             List<ProdutoDTO> produtosDTO = mapperUtil.mapList(produtos, ProdutoDTO.class);
             return ResponseEntity.ok(produtosDTO);
@@ -112,8 +118,9 @@ public class MinhaLojaController {
             @Valid @RequestBody ProdutoCreateDTO request) {
 
         Optional<Usuario> usuario = usuarioService.buscarPorEmail(userDetails.getUsername());
-        if (usuario.isPresent() && !usuario.get().getLojas().isEmpty()) {
-            Loja loja = usuario.get().getLojas().get(0);
+        Optional<Loja> lojaDoUsuario = usuario.flatMap(lojaService::buscarLojaDoUsuario);
+        if (lojaDoUsuario.isPresent()) {
+            Loja loja = lojaDoUsuario.get();
 
             try {
                 // Converter DTO para entidade
@@ -128,6 +135,54 @@ public class MinhaLojaController {
         return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Usuário não tem loja ou não tem permissão"));
     }
 
+    // Importação em massa: o corpo é o próprio arquivo (text/csv com cabeçalho ou application/x-ndjson),
+    // lido em streaming; a resposta traz os totais e as linhas com erro
+    @PostMapping(value = "/produtos/importar", consumes = {"text/csv", "application/x-ndjson"})
+    public ResponseEntity<?> importarProdutos(
+            @AuthenticationPrincipal UserDetails userDetails,
+            HttpServletRequest request) throws IOException {
+
+        Optional<Usuario> usuario = usuarioService.buscarPorEmail(userDetails.getUsername());
+        Optional<Loja> lojaDoUsuario = usuario.flatMap(lojaService::buscarLojaDoUsuario);
+        if (lojaDoUsuario.isPresent()) {
+            Loja loja = lojaDoUsuario.get();
+            ImportacaoProdutosService.Formato formato = request.getContentType().startsWith("text/csv")
+                    ? ImportacaoProdutosService.Formato.CSV
+                    : ImportacaoProdutosService.Formato.NDJSON;
+
+            try {
+                ImportacaoProdutosDTO resultado = importacaoProdutosService.importar(
+                        loja, usuario.get(), formato, request.getInputStream());
+                return ResponseEntity.ok(resultado);
+            } catch (ValidationException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        }
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Usuário não tem loja ou não tem permissão"));
+    }
+
+    // Atualização em massa de preço/estoque: lista de {id, preco, quantidade} ou regra de reajuste
+    // percentual ({"regra": {"categoria": "X", "percentual": 10}}), aplicada em UPDATEs por lote
+    @PatchMapping("/produtos")
+    public ResponseEntity<?> atualizarProdutosEmLote(
+            @AuthenticationPrincipal UserDetails userDetails,
+            @Valid @RequestBody AtualizacaoProdutosDTO request) {
+
+        Optional<Usuario> usuario = usuarioService.buscarPorEmail(userDetails.getUsername());
+        Optional<Loja> lojaDoUsuario = usuario.flatMap(lojaService::buscarLojaDoUsuario);
+        if (lojaDoUsuario.isPresent()) {
+            Loja loja = lojaDoUsuario.get();
+            try {
+                ResultadoAtualizacaoProdutosDTO resultado = atualizacaoProdutosService.atualizar(
+                        loja, usuario.get(), request);
+                return ResponseEntity.ok(resultado);
+            } catch (ValidationException e) {
+                return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+            }
+        }
+        return ResponseEntity.status(HttpStatus.FORBIDDEN).body(Map.of("error", "Usuário não tem loja ou não tem permissão"));
+    }
+
     @PutMapping("/produtos/{id}")
     public ResponseEntity<?> editarProduto(
             @AuthenticationPrincipal UserDetails userDetails,
@@ -217,4 +272,9 @@ public class MinhaLojaController {
         }
         return ResponseEntity.notFound().build();
     }
+
+    // Painel da loja, que exibe a quantidade de produtos
+    private LojaDTO toLojaDTOComQuantidade(Loja loja) {
+        return mapperUtil.toLojaDTO(loja, lojaService.contarProdutos(loja.getId()));
+    }
 }
\ No newline at end of file
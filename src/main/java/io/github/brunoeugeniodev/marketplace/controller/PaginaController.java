@@ -1,9 +1,11 @@
 package io.github.brunoeugeniodev.marketplace.controller;
 
+import io.github.brunoeugeniodev.marketplace.dto.LojaListagemDTO;
 import io.github.brunoeugeniodev.marketplace.models.Loja;
 import io.github.brunoeugeniodev.marketplace.models.Produto;
 import io.github.brunoeugeniodev.marketplace.service.LojaService;
 import io.github.brunoeugeniodev.marketplace.service.ProdutoService;
+import io.github.brunoeugeniodev.marketplace.service.VitrineService;
 import jakarta.servlet.http.HttpSession;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
@@ -23,10 +25,12 @@ public class PaginaController {
 
     private final LojaService lojaService;
     private final ProdutoService produtoService;
+    private final VitrineService vitrineService;
 
-    public PaginaController(LojaService lojaService, ProdutoService produtoService) {
+    public PaginaController(LojaService lojaService, ProdutoService produtoService, VitrineService vitrineService) {
         this.lojaService = lojaService;
         this.produtoService = produtoService;
+        this.vitrineService = vitrineService;
     }
 
     // Método auxiliar para injetar o status de login
@@ -43,11 +47,10 @@ public class PaginaController {
 
     @GetMapping("/")
     public String home(Model model, HttpSession session) {
-        List<Loja> lojas = lojaService.listarLojasAtivas();
-        List<Produto> produtosDestaque = produtoService.listarProdutosAtivos();
+        VitrineService.Snapshot vitrine = vitrineService.obter();
 
-        model.addAttribute("lojas", lojas);
-        model.addAttribute("produtosDestaque", produtosDestaque);
+        model.addAttribute("lojas", vitrine.lojas());
+        model.addAttribute("produtosDestaque", vitrine.produtosDestaque());
         addLoginStatus(model); // Adiciona o status de login
         return "index";
     }
@@ -64,7 +67,7 @@ public class PaginaController {
 
     @GetMapping("/lojas")
     public String lojas(Model model) {
-        List<Loja> lojas = lojaService.listarLojasAtivas();
+        List<LojaListagemDTO> lojas = lojaService.listarResumoLojasAtivas();
         model.addAttribute("lojas", lojas);
         addLoginStatus(model);
         return "lojas";
@@ -100,8 +103,7 @@ public class PaginaController {
 
     @GetMapping("/destaques")
     public String destaques(Model model) {
-        List<Produto> produtosDestaque = produtoService.listarProdutosAtivos();
-        model.addAttribute("produtosDestaque", produtosDestaque);
+        model.addAttribute("produtosDestaque", vitrineService.obter().produtosDestaque());
         addLoginStatus(model);
         return "destaques";
     }
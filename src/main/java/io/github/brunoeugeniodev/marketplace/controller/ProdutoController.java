@@ -1,47 +1,120 @@
 package io.github.brunoeugeniodev.marketplace.controller;
 
+import io.github.brunoeugeniodev.marketplace.dto.PaginaCursorDTO;
 import io.github.brunoeugeniodev.marketplace.dto.ProdutoDTO;
 import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.service.ExportacaoCatalogoService;
 import io.github.brunoeugeniodev.marketplace.service.ProdutoService;
+import io.github.brunoeugeniodev.marketplace.util.EtagUtil;
 import io.github.brunoeugeniodev.marketplace.util.MapperUtil;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.util.Optional;
-import java.util.stream.Collectors;
 
 @RestController
 @RequestMapping("/api/produtos")
 @RequiredArgsConstructor
 public class ProdutoController {
 
+    private static final int LIMITE_MAXIMO = 50;
+
     private final ProdutoService produtoService;
+    private final ExportacaoCatalogoService exportacaoCatalogoService;
     private final MapperUtil mapperUtil;
 
+    // Catálogo paginado por keyset: o cliente segue "proximoCursor" até ele vir nulo
     @GetMapping
-    public ResponseEntity<List<ProdutoDTO>> listarProdutos() {
-        List<Produto> produtos = produtoService.listarProdutosAtivos();
-        List<ProdutoDTO> produtosDTO = mapperUtil.mapList(produtos, ProdutoDTO.class);
-        return ResponseEntity.ok(produtosDTO);
+    public ResponseEntity<PaginaCursorDTO<ProdutoDTO>> listarProdutos(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limite,
+            @RequestParam(required = false) String categoria,
+            @RequestParam(required = false) BigDecimal precoMin,
+            @RequestParam(required = false) BigDecimal precoMax,
+            @RequestParam(required = false) Long lojaId,
+            WebRequest request) {
+        String categoriaFiltro = categoria != null && !categoria.isBlank() ? categoria.trim() : null;
+        ProdutoService.FiltroProdutos filtro =
+                new ProdutoService.FiltroProdutos(lojaId, categoriaFiltro, precoMin, precoMax);
+        return listar(filtro, cursor, limite, request);
+    }
+
+    // Catálogo completo em streaming (NDJSON por padrão, ou CSV), para parceiros e comparadores de preço
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportar(@RequestParam(defaultValue = "ndjson") String formato) {
+        ExportacaoCatalogoService.Formato tipo;
+        MediaType mediaType;
+        if ("csv".equalsIgnoreCase(formato)) {
+            tipo = ExportacaoCatalogoService.Formato.CSV;
+            mediaType = new MediaType("text", "csv", StandardCharsets.UTF_8);
+        } else if ("ndjson".equalsIgnoreCase(formato)) {
+            tipo = ExportacaoCatalogoService.Formato.NDJSON;
+            mediaType = MediaType.APPLICATION_NDJSON;
+        } else {
+            return ResponseEntity.badRequest().build();
+        }
+
+        StreamingResponseBody corpo = saida -> exportacaoCatalogoService.exportar(tipo, saida);
+        return ResponseEntity.ok()
+                .contentType(mediaType)
+                .header(HttpHeaders.CONTENT_DISPOSITION,
+                        "attachment; filename=\"catalogo." + formato.toLowerCase() + "\"")
+                .body(corpo);
     }
 
+    // GET condicional: o ETag sai das versões do produto e da loja, e o DTO só é montado se mudou
     @GetMapping("/{id}")
-    public ResponseEntity<ProdutoDTO> listarPorId(@PathVariable Long id) {
+    public ResponseEntity<ProdutoDTO> listarPorId(@PathVariable Long id, WebRequest request) {
         Optional<Produto> optionalProduto = produtoService.buscarProdutoAtivoPorId(id);
         if (optionalProduto.isPresent()) {
-            ProdutoDTO produtoDTO = mapperUtil.toProdutoDTO(optionalProduto.get());
-            return ResponseEntity.ok(produtoDTO);
+            Produto produto = optionalProduto.get();
+            String etag = EtagUtil.produto(produto);
+            long ultimaAlteracao = EtagUtil.ultimaAlteracao(
+                    produto.getDataAtualizacao(), produto.getLoja().getDataAtualizacao());
+            if (request.checkNotModified(etag, ultimaAlteracao)) {
+                return null;
+            }
+
+            ProdutoDTO produtoDTO = mapperUtil.toProdutoDTO(produto);
+            return ResponseEntity.ok()
+                    .eTag(etag)
+                    .lastModified(ultimaAlteracao)
+                    .cacheControl(CacheControl.noCache())
+                    .body(produtoDTO);
         } else {
             return ResponseEntity.notFound().build();
         }
     }
 
     @GetMapping("/loja/{lojaId}")
-    public ResponseEntity<List<ProdutoDTO>> listarProdutosDaLoja(@PathVariable Long lojaId) {
-        List<Produto> produtos = produtoService.listarProdutosPorLoja(lojaId);
-        List<ProdutoDTO> produtosDTO = mapperUtil.mapList(produtos, ProdutoDTO.class);
-        return ResponseEntity.ok(produtosDTO);
+    public ResponseEntity<PaginaCursorDTO<ProdutoDTO>> listarProdutosDaLoja(
+            @PathVariable Long lojaId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "20") int limite,
+            WebRequest request) {
+        return listar(ProdutoService.FiltroProdutos.daLoja(lojaId), cursor, limite, request);
+    }
+
+    private ResponseEntity<PaginaCursorDTO<ProdutoDTO>> listar(ProdutoService.FiltroProdutos filtro, String cursor,
+                                                                int limite, WebRequest request) {
+        int tamanhoPagina = Math.min(Math.max(limite, 1), LIMITE_MAXIMO);
+        PaginaCursorDTO<Produto> pagina = produtoService.listarProdutos(filtro, cursor, tamanhoPagina);
+
+        String etag = EtagUtil.produtos(pagina.getItens(), pagina.getProximoCursor());
+        if (request.checkNotModified(etag)) {
+            return null;
+        }
+        return ResponseEntity.ok()
+                .eTag(etag)
+                .cacheControl(CacheControl.noCache())
+                .body(pagina.map(mapperUtil::toProdutoDTO));
     }
-}
\ No newline at end of file
+}
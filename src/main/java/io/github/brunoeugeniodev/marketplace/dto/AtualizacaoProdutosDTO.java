@@ -0,0 +1,52 @@
+package io.github.brunoeugeniodev.marketplace.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+// Corpo de PATCH /api/minha-loja/produtos: uma lista de alterações por produto ou uma regra de reajuste
+@Data
+@NoArgsConstructor
+public class AtualizacaoProdutosDTO {
+
+    @Size(max = 10000, message = "No máximo 10000 produtos por requisição")
+    private List<@Valid @NotNull Item> itens;
+
+    @Valid
+    private Regra regra;
+
+    // preco e quantidade são opcionais individualmente: o que vier null fica como está
+    @Data
+    @NoArgsConstructor
+    public static class Item {
+
+        @NotNull(message = "Id do produto é obrigatório")
+        private Long id;
+
+        @DecimalMin(value = "0.01", message = "Preço deve ser maior que zero")
+        @Digits(integer = 8, fraction = 2, message = "Preço deve ter no máximo 2 casas decimais")
+        private BigDecimal preco;
+
+        @Min(value = 0, message = "Quantidade não pode ser negativa")
+        private Long quantidade;
+    }
+
+    // Ex.: {"categoria": "Eletrônicos", "percentual": 10} = +10% nos produtos ativos da categoria
+    @Data
+    @NoArgsConstructor
+    public static class Regra {
+
+        @Size(max = 100, message = "Categoria deve ter no máximo 100 caracteres")
+        private String categoria;
+
+        @NotNull(message = "Percentual é obrigatório")
+        @DecimalMin(value = "-99.99", message = "Percentual deve ser maior que -100")
+        @DecimalMax(value = "1000", message = "Percentual deve ser no máximo 1000")
+        @Digits(integer = 4, fraction = 2, message = "Percentual deve ter no máximo 2 casas decimais")
+        private BigDecimal percentual;
+    }
+}
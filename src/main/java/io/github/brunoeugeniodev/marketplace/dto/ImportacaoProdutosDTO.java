@@ -0,0 +1,33 @@
+package io.github.brunoeugeniodev.marketplace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Relatório da importação em massa de produtos (POST /api/minha-loja/produtos/importar)
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportacaoProdutosDTO {
+    private long linhasLidas;
+    private long importados;
+    private long comErro;
+    private long duracaoMs;
+
+    // Só as primeiras linhas com erro; errosOmitidos diz quantas ficaram de fora
+    private List<ErroLinha> erros;
+    private long errosOmitidos;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErroLinha {
+        // Número da linha no arquivo (o cabeçalho do CSV é a linha 1)
+        private long linha;
+        private String erro;
+    }
+}
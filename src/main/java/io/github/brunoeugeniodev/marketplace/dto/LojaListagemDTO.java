@@ -0,0 +1,41 @@
+package io.github.brunoeugeniodev.marketplace.dto;
+
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// Modelo de leitura das listagens de lojas: preenchido direto pela consulta agrupada do LojaRepository
+// (campos da loja + nome do proprietário + COUNT dos produtos), sem inicializar loja.getProdutos()
+// nem o proxy do usuário. A ordem dos campos é a do construtor usado no "SELECT new".
+@Getter
+@AllArgsConstructor
+public class LojaListagemDTO {
+
+    private final Long id;
+    private final String nome;
+    private final String cnpj;
+    private final String descricao;
+    private final String fotoUrl;
+    private final String telefone;
+    private final String email;
+    private final String site;
+    private final Boolean ativo;
+    private final Double avaliacaoMedia;
+    private final Integer totalAvaliacoes;
+    private final Loja.EnderecoLoja endereco;
+    private final Long proprietarioId;
+    private final String proprietarioNome;
+    private final Long quantidadeProdutos;
+    private final LocalDateTime dataCriacao;
+    private final LocalDateTime dataAtualizacao;
+
+    // Mesmo texto de Loja.getLocalizacao()
+    public String getLocalizacao() {
+        if (endereco != null) {
+            return String.format("%s, %s", endereco.getCidade(), endereco.getEstado());
+        }
+        return "Localização não informada";
+    }
+}
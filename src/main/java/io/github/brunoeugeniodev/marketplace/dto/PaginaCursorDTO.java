@@ -0,0 +1,55 @@
+package io.github.brunoeugeniodev.marketplace.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.github.brunoeugeniodev.marketplace.util.CursorUtil;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public class PaginaCursorDTO<T> {
+    private List<T> itens;
+
+    // Nulo quando não há próxima página
+    private String proximoCursor;
+
+    // Calculado só na primeira página (sem cursor), para não repetir o COUNT a cada página
+    private Long total;
+
+    public Boolean getTemMais() {
+        return proximoCursor != null;
+    }
+
+    public <R> PaginaCursorDTO<R> map(Function<T, R> mapper) {
+        return new PaginaCursorDTO<>(
+                itens.stream().map(mapper).collect(Collectors.toList()),
+                proximoCursor,
+                total
+        );
+    }
+
+    // Monta a página a partir de uma consulta que buscou limite + 1 linhas:
+    // a linha extra só indica que existe próxima página e é descartada
+    public static <T> PaginaCursorDTO<T> deConsulta(List<T> linhas, int limite,
+                                                    Function<T, Long> chave, Long total) {
+        return deConsultaComCursor(linhas, limite, linha -> CursorUtil.codificar(chave.apply(linha)), total);
+    }
+
+    // Igual ao anterior, para cursores compostos: recebe o cursor já codificado a partir da última linha
+    public static <T> PaginaCursorDTO<T> deConsultaComCursor(List<T> linhas, int limite,
+                                                             Function<T, String> cursor, Long total) {
+        boolean temMais = linhas.size() > limite;
+        List<T> pagina = temMais ? linhas.subList(0, limite) : linhas;
+        String proximoCursor = temMais ? cursor.apply(pagina.get(pagina.size() - 1)) : null;
+        return new PaginaCursorDTO<>(pagina, proximoCursor, total);
+    }
+}
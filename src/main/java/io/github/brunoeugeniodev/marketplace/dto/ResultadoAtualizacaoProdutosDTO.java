@@ -0,0 +1,22 @@
+package io.github.brunoeugeniodev.marketplace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+// Resposta de PATCH /api/minha-loja/produtos
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoAtualizacaoProdutosDTO {
+    private long solicitados;
+    private long atualizados;
+    private long duracaoMs;
+
+    // Só na atualização por lista: ids que não são da loja, não existem ou já tinham os valores pedidos
+    private List<Long> naoAlterados;
+}
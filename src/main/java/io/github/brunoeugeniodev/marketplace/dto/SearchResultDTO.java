@@ -1,5 +1,6 @@
 package io.github.brunoeugeniodev.marketplace.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -11,19 +12,19 @@ import java.util.List;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class SearchResultDTO {
     private List<LojaDTO> lojas;
     private List<ProdutoDTO> produtos;
 
-    // Campos removidos para evitar conflito com os métodos getters
-    // private Integer totalLojas;
-    // private Integer totalProdutos;
+    // Totais vêm de uma contagem separada e só são enviados na primeira página
+    private Long totalLojas;
+    private Long totalProdutos;
 
-    public Integer getTotalLojas() {
-        return lojas != null ? lojas.size() : 0;
-    }
+    // Cursores para buscar a próxima página de cada lista (nulos quando acabou)
+    private String proximoCursorLojas;
+    private String proximoCursorProdutos;
 
-    public Integer getTotalProdutos() {
-        return produtos != null ? produtos.size() : 0;
-    }
-}
\ No newline at end of file
+    // true quando lojas ou produtos não responderam a tempo e vieram vazios
+    private Boolean parcial;
+}
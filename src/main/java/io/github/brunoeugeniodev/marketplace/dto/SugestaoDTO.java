@@ -0,0 +1,17 @@
+package io.github.brunoeugeniodev.marketplace.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SugestaoDTO {
+    private String texto;
+
+    // PRODUTO, MARCA, CATEGORIA ou LOJA
+    private String tipo;
+}
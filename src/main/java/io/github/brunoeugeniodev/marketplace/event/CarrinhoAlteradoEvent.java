@@ -0,0 +1,12 @@
+package io.github.brunoeugeniodev.marketplace.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Publicado pelo CarrinhoService a cada alteração do carrinho; consumido após o commit pelo contador do badge
+@Getter
+@AllArgsConstructor
+public class CarrinhoAlteradoEvent {
+
+    private final String email;
+}
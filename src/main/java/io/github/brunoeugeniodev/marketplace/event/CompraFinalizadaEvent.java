@@ -0,0 +1,18 @@
+package io.github.brunoeugeniodev.marketplace.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.Map;
+
+// Publicado pelo CarrinhoService no checkout; consumido após o commit, quando o carrinho já foi esvaziado no banco
+@Getter
+@AllArgsConstructor
+public class CompraFinalizadaEvent {
+
+    private final String email;
+
+    // No modo write-behind, produtoId -> versão de cada item do carrinho em memória que entrou na compra;
+    // vazio no modo banco
+    private final Map<Long, Long> versoesItens;
+}
@@ -0,0 +1,31 @@
+package io.github.brunoeugeniodev.marketplace.event;
+
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Snapshot da loja publicado pelo LojaService e consumido após o commit
+@Getter
+@AllArgsConstructor
+public class LojaAlteradaEvent {
+
+    private final Long lojaId;
+    private final String nome;
+    private final boolean ativo;
+    private final Double avaliacaoMedia;
+    private final Integer totalAvaliacoes;
+
+    public static LojaAlteradaEvent de(Loja loja) {
+        return new LojaAlteradaEvent(
+                loja.getId(),
+                loja.getNome(),
+                Boolean.TRUE.equals(loja.getAtivo()),
+                loja.getAvaliacaoMedia(),
+                loja.getTotalAvaliacoes()
+        );
+    }
+
+    public static LojaAlteradaEvent removida(Long lojaId) {
+        return new LojaAlteradaEvent(lojaId, null, false, 0.0, 0);
+    }
+}
@@ -0,0 +1,16 @@
+package io.github.brunoeugeniodev.marketplace.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+
+// Publicado pelo ProdutoService nas atualizações em massa de preço/estoque, feitas em SQL direto.
+// Preço e estoque não entram nos índices de busca, por isso não há um ProdutoAlteradoEvent por produto.
+@Getter
+@AllArgsConstructor
+public class PrecoEstoqueAlteradoEvent {
+
+    private final Long lojaId;
+    private final List<Long> produtoIds;
+}
@@ -0,0 +1,54 @@
+package io.github.brunoeugeniodev.marketplace.event;
+
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Snapshot dos campos pesquisáveis de um produto, publicado pelo ProdutoService
+// e consumido após o commit (o produto pode estar desanexado nesse momento)
+@Getter
+@AllArgsConstructor
+public class ProdutoAlteradoEvent {
+
+    private final Long produtoId;
+    private final Long lojaId;
+    private final String nome;
+    private final String descricao;
+    private final String categoria;
+    private final String marca;
+    private final boolean ativo;
+    private final boolean lojaAtiva;
+    private final Integer totalVendas;
+    private final Double avaliacaoMedia;
+
+    public static ProdutoAlteradoEvent de(Produto produto) {
+        Loja loja = produto.getLoja();
+        return de(produto, loja != null && Boolean.TRUE.equals(loja.getAtivo()));
+    }
+
+    // Para quem já sabe se a loja está ativa e não quer inicializar o proxy dela
+    public static ProdutoAlteradoEvent de(Produto produto, boolean lojaAtiva) {
+        return new ProdutoAlteradoEvent(
+                produto.getId(),
+                produto.getLoja() != null ? produto.getLoja().getId() : null,
+                produto.getNome(),
+                produto.getDescricao(),
+                produto.getCategoria(),
+                produto.getMarca(),
+                Boolean.TRUE.equals(produto.getAtivo()),
+                lojaAtiva,
+                produto.getTotalVendas(),
+                produto.getAvaliacaoMedia()
+        );
+    }
+
+    public static ProdutoAlteradoEvent removido(Long produtoId) {
+        return new ProdutoAlteradoEvent(produtoId, null, null, null, null, null, false, false, 0, 0.0);
+    }
+
+    // Só produto ativo de loja ativa aparece na busca e nas sugestões
+    public boolean isPesquisavel() {
+        return ativo && lojaAtiva;
+    }
+}
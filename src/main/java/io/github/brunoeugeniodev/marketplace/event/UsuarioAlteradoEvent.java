@@ -0,0 +1,13 @@
+package io.github.brunoeugeniodev.marketplace.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+// Publicado pelo UsuarioService quando muda algo que entra no principal autenticado
+// (ativo, roles, senha ou email); consumido após o commit para invalidar o cache de principais
+@Getter
+@AllArgsConstructor
+public class UsuarioAlteradoEvent {
+
+    private final String email;
+}
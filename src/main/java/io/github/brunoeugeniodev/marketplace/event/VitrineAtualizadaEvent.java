@@ -0,0 +1,14 @@
+package io.github.brunoeugeniodev.marketplace.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+// Publicado pelo VitrineService sempre que um novo snapshot da home passa a valer
+@Getter
+@AllArgsConstructor
+public class VitrineAtualizadaEvent {
+
+    private final LocalDateTime geradoEm;
+}
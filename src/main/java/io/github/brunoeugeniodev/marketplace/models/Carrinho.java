@@ -20,6 +20,16 @@ import java.util.List;
         indexes = {
                 @Index(name = "idx_carrinho_usuario", columnList = "usuario_id", unique = true)
         })
+// Agregado que o CarrinhoDTO e o ETag do carrinho leem: usuário, itens, produto de cada item e a loja dele
+@NamedEntityGraph(name = "Carrinho.completo",
+        attributeNodes = {
+                @NamedAttributeNode("usuario"),
+                @NamedAttributeNode(value = "itens", subgraph = "itens")
+        },
+        subgraphs = {
+                @NamedSubgraph(name = "itens", attributeNodes = @NamedAttributeNode(value = "produto", subgraph = "produto")),
+                @NamedSubgraph(name = "produto", attributeNodes = @NamedAttributeNode("loja"))
+        })
 @Getter
 @Setter
 @NoArgsConstructor
@@ -28,7 +38,8 @@ import java.util.List;
 public class Carrinho {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "carrinho_seq")
+    @SequenceGenerator(name = "carrinho_seq", sequenceName = "carrinhos_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
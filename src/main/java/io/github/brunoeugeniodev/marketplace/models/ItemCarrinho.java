@@ -33,7 +33,8 @@ import java.time.LocalDateTime;
 public class ItemCarrinho {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "itemCarrinho_seq")
+    @SequenceGenerator(name = "itemCarrinho_seq", sequenceName = "itens_carrinho_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
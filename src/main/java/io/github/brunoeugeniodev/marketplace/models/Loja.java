@@ -11,6 +11,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -25,6 +27,11 @@ import java.util.List;
                 @Index(name = "idx_loja_nome", columnList = "nome"),
                 @Index(name = "idx_loja_usuario", columnList = "usuario_id")
         })
+// Plano de carga usado pelos repositórios: o LojaDTO e o ETag precisam do proprietário. A quantidade de
+// produtos vem de um COUNT, então a coleção de produtos nunca entra no grafo
+@NamedEntityGraph(name = "Loja.detalhe", attributeNodes = @NamedAttributeNode("usuario"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "loja")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -33,7 +40,8 @@ import java.util.List;
 public class Loja {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "loja_seq")
+    @SequenceGenerator(name = "loja_seq", sequenceName = "lojas_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -47,7 +55,10 @@ public class Loja {
     @Embedded
     private EnderecoLoja endereco;
 
+    // Cacheada; hibernate.cache.auto_evict_collection_cache tira do cache quando um produto muda de loja,
+    // é criado ou removido pelo lado do Produto. Para contar, use LojaService.contarProdutos
     @OneToMany(mappedBy = "loja", cascade = CascadeType.ALL, orphanRemoval = true)
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "loja.produtos")
     @JsonIgnore // Evita loop infinito
     private List<Produto> produtos = new ArrayList<>();
 
@@ -104,13 +115,6 @@ public class Loja {
         return "Localização não informada";
     }
 
-    // Método helper para contar produtos
-    @Transient
-    @JsonInclude
-    public Integer getQuantidadeProdutos() {
-        return produtos != null ? produtos.size() : 0;
-    }
-
     // Classe interna para endereço da loja
     @Embeddable
     @Getter
@@ -11,6 +11,8 @@ import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
 import lombok.experimental.SuperBuilder;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 import org.hibernate.annotations.CreationTimestamp;
 import org.hibernate.annotations.UpdateTimestamp;
 
@@ -23,8 +25,13 @@ import java.time.LocalDateTime;
                 @Index(name = "idx_produto_nome", columnList = "nome"),
                 @Index(name = "idx_produto_loja", columnList = "loja_id"),
                 @Index(name = "idx_produto_preco", columnList = "preco"),
-                @Index(name = "idx_produto_destaque", columnList = "destaque")
+                @Index(name = "idx_produto_destaque", columnList = "destaque"),
+                @Index(name = "idx_produto_data_criacao", columnList = "data_criacao, id")
         })
+// O ProdutoDTO e o ETag do produto leem a loja
+@NamedEntityGraph(name = "Produto.comLoja", attributeNodes = @NamedAttributeNode("loja"))
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "produto")
 @Getter
 @Setter
 @NoArgsConstructor
@@ -33,7 +40,8 @@ import java.time.LocalDateTime;
 public class Produto {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "produto_seq")
+    @SequenceGenerator(name = "produto_seq", sequenceName = "produtos_seq", allocationSize = 50)
     @Column(name = "id")
     private Long id;
 
@@ -25,6 +25,8 @@ import java.util.List;
                 @Index(name = "idx_usuario_email", columnList = "email", unique = true),
                 @Index(name = "idx_usuario_cpf", columnList = "cpf", unique = true)
         })
+// As roles vão no UsuarioDTO e nas authorities do principal
+@NamedEntityGraph(name = "Usuario.comRoles", attributeNodes = @NamedAttributeNode("roles"))
 @Getter
 @Setter
 @NoArgsConstructor
@@ -33,7 +35,8 @@ import java.util.List;
 public class Usuario {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "usuario_seq")
+    @SequenceGenerator(name = "usuario_seq", sequenceName = "usuarios_seq", allocationSize = 50)
     private Long id;
 
     @NotBlank(message = "Nome é obrigatório")
@@ -65,10 +68,6 @@ public class Usuario {
     @JsonIgnore // Evita loop infinito
     private List<Endereco> enderecos = new ArrayList<>();
 
-    @OneToOne(mappedBy = "usuario", cascade = CascadeType.ALL, orphanRemoval = true)
-    @JsonIgnore // Evita loop infinito
-    private Carrinho carrinho;
-
     @ElementCollection(fetch = FetchType.LAZY) // Mudado para LAZY por performance
     @CollectionTable(
             name = "usuario_roles",
@@ -2,6 +2,7 @@ package io.github.brunoeugeniodev.marketplace.repository;
 
 import io.github.brunoeugeniodev.marketplace.models.Carrinho;
 import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -16,10 +17,16 @@ public interface CarrinhoRepository extends JpaRepository<Carrinho, Long> {
 
     Optional<Carrinho> findByUsuarioId(Long usuarioId);
 
-    @Query("SELECT c FROM Carrinho c LEFT JOIN FETCH c.itens i LEFT JOIN FETCH i.produto " +
-            "WHERE c.usuario.id = :usuarioId")
+    @EntityGraph("Carrinho.completo")
+    @Query("SELECT c FROM Carrinho c WHERE c.usuario.id = :usuarioId")
     Optional<Carrinho> findByUsuarioIdComItens(@Param("usuarioId") Long usuarioId);
 
+    // Agregado completo do carrinho a partir do email do principal, numa única consulta
+    // (usuário, itens, produtos e lojas pelo grafo "Carrinho.completo")
+    @EntityGraph("Carrinho.completo")
+    @Query("SELECT c FROM Carrinho c WHERE c.usuario.email = :email")
+    Optional<Carrinho> findByUsuarioEmailComItens(@Param("email") String email);
+
     @Query("SELECT COUNT(c) > 0 FROM Carrinho c WHERE c.usuario.id = :usuarioId")
     boolean existsByUsuarioId(@Param("usuarioId") Long usuarioId);
 }
\ No newline at end of file
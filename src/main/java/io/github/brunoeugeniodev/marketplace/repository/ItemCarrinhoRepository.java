@@ -33,4 +33,7 @@ public interface ItemCarrinhoRepository extends JpaRepository<ItemCarrinho, Long
 
     @Query("SELECT SUM(i.quantidade) FROM ItemCarrinho i WHERE i.carrinho.id = :carrinhoId")
     Integer countTotalItensNoCarrinho(@Param("carrinhoId") Long carrinhoId);
+
+    @Query("SELECT COALESCE(SUM(i.quantidade), 0) FROM ItemCarrinho i WHERE i.carrinho.usuario.email = :email")
+    Integer countTotalItensPorEmail(@Param("email") String email);
 }
\ No newline at end of file
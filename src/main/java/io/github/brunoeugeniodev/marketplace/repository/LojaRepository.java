@@ -1,10 +1,15 @@
 package io.github.brunoeugeniodev.marketplace.repository;
 
+import io.github.brunoeugeniodev.marketplace.dto.LojaListagemDTO;
 import io.github.brunoeugeniodev.marketplace.models.Loja;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
@@ -14,6 +19,14 @@ import java.util.Optional;
 @Repository
 public interface LojaRepository extends JpaRepository<Loja, Long> {
 
+    // Detalhe da loja (GET, ETag e escritas): só o proprietário vem junto; a quantidade de produtos é um COUNT.
+    // Por consulta e não pelo em.find: vinda do cache de segundo nível, a loja traria o proprietário (que
+    // não é cacheado) como proxy, e o DTO é montado fora da transação
+    @Override
+    @EntityGraph("Loja.detalhe")
+    @Query("SELECT l FROM Loja l WHERE l.id = :id")
+    Optional<Loja> findById(@Param("id") Long id);
+
     boolean existsByCnpj(String cnpj);
 
     Optional<Loja> findByCnpj(String cnpj);
@@ -22,19 +35,78 @@ public interface LojaRepository extends JpaRepository<Loja, Long> {
 
     List<Loja> findByAtivoTrue();
 
+    // Índice de busca: lojas cujos produtos ficam fora dele até a reativação
+    @Query("SELECT l.id FROM Loja l WHERE l.ativo = false")
+    List<Long> findIdsInativas();
+
     List<Loja> findByUsuarioId(Long usuarioId);
 
+    // Loja do vendedor em /api/minha-loja (a mais antiga, se ele tiver mais de uma)
+    String LOJA_DO_USUARIO = "SELECT l FROM Loja l WHERE l.id = " +
+            "(SELECT MIN(o.id) FROM Loja o WHERE o.usuario.id = :usuarioId)";
+
+    // Só os campos da loja: basta para as escritas, que conferem o dono pelo id do proprietário
+    @Query(LOJA_DO_USUARIO)
+    Optional<Loja> buscarLojaDoUsuario(@Param("usuarioId") Long usuarioId);
+
+    @EntityGraph("Loja.detalhe")
+    @Query(LOJA_DO_USUARIO)
+    Optional<Loja> buscarLojaDoUsuarioComDetalhe(@Param("usuarioId") Long usuarioId);
+
     @Query("SELECT l FROM Loja l WHERE l.usuario.email = :email")
     List<Loja> findByUsuarioEmail(@Param("email") String email);
 
-    @Query("SELECT l FROM Loja l WHERE LOWER(l.nome) LIKE LOWER(CONCAT('%', :termo, '%')) " +
+    // Paginação por keyset no id: passe PageRequest.of(0, n) para limitar as linhas
+    @Query("SELECT l FROM Loja l WHERE (LOWER(l.nome) LIKE LOWER(CONCAT('%', :termo, '%')) " +
+            "OR LOWER(l.descricao) LIKE LOWER(CONCAT('%', :termo, '%'))) " +
+            "AND l.id > :aposId ORDER BY l.id")
+    List<Loja> buscarPorTermo(@Param("termo") String termo, @Param("aposId") Long aposId, Pageable pageable);
+
+    @Query("SELECT COUNT(l) FROM Loja l WHERE LOWER(l.nome) LIKE LOWER(CONCAT('%', :termo, '%')) " +
             "OR LOWER(l.descricao) LIKE LOWER(CONCAT('%', :termo, '%'))")
-    List<Loja> buscarPorTermo(@Param("termo") String termo);
+    long contarPorTermo(@Param("termo") String termo);
 
+    // Recomendadas e destaques vão para o cache de consultas do Hibernate, que descarta o resultado
+    // sozinho quando lojas, usuários ou produtos são alterados pelo JPA
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "vitrine-lojas")
+    })
     @Query("SELECT l FROM Loja l WHERE l.ativo = true " +
             "ORDER BY l.avaliacaoMedia DESC NULLS LAST, l.dataCriacao DESC")
     Page<Loja> findLojasRecomendadas(Pageable pageable);
 
+    // Listagens: uma única consulta agrupada com o nome do proprietário e a contagem de produtos
+    String SELECT_LISTAGEM = "SELECT new io.github.brunoeugeniodev.marketplace.dto.LojaListagemDTO(" +
+            "l.id, l.nome, l.cnpj, l.descricao, l.fotoUrl, l.telefone, l.email, l.site, l.ativo, " +
+            "l.avaliacaoMedia, l.totalAvaliacoes, l.endereco, u.id, u.nome, COUNT(p), " +
+            "l.dataCriacao, l.dataAtualizacao) " +
+            "FROM Loja l LEFT JOIN l.usuario u LEFT JOIN l.produtos p ";
+
+    @Query(SELECT_LISTAGEM + "WHERE l.ativo = true GROUP BY l.id, u.id ORDER BY l.id")
+    List<LojaListagemDTO> listarAtivas();
+
+    @Query(SELECT_LISTAGEM + "WHERE LOWER(l.nome) LIKE LOWER(CONCAT('%', :nome, '%')) GROUP BY l.id, u.id ORDER BY l.id")
+    List<LojaListagemDTO> listarPorNome(@Param("nome") String nome);
+
+    @Query(SELECT_LISTAGEM + "WHERE u.id = :usuarioId GROUP BY l.id, u.id ORDER BY l.id")
+    List<LojaListagemDTO> listarDoUsuario(@Param("usuarioId") Long usuarioId);
+
+    // Mesmo filtro e keyset de buscarPorTermo: passe PageRequest.of(0, n) para limitar as linhas
+    @Query(SELECT_LISTAGEM + "WHERE (LOWER(l.nome) LIKE LOWER(CONCAT('%', :termo, '%')) " +
+            "OR LOWER(l.descricao) LIKE LOWER(CONCAT('%', :termo, '%'))) " +
+            "AND l.id > :aposId GROUP BY l.id, u.id ORDER BY l.id")
+    List<LojaListagemDTO> listarPorTermo(@Param("termo") String termo, @Param("aposId") Long aposId,
+                                         Pageable pageable);
+
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "vitrine-lojas")
+    })
+    @Query(SELECT_LISTAGEM + "WHERE l.ativo = true GROUP BY l.id, u.id " +
+            "ORDER BY l.avaliacaoMedia DESC NULLS LAST, l.dataCriacao DESC")
+    List<LojaListagemDTO> listarRecomendadas(Pageable pageable);
+
     @Query("SELECT l FROM Loja l WHERE l.endereco.cidade = :cidade AND l.ativo = true")
     List<Loja> findByCidade(@Param("cidade") String cidade);
 
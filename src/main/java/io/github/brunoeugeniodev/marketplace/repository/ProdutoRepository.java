@@ -1,21 +1,41 @@
 package io.github.brunoeugeniodev.marketplace.repository;
 
 import io.github.brunoeugeniodev.marketplace.models.Produto;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.AvailableHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 
+    // Sem open-in-view a loja precisa vir junto nas consultas cujo resultado vira ProdutoDTO ou ETag
+    // depois da transação: o grafo "Produto.comLoja" faz o JOIN na mesma consulta
+    @Override
+    @EntityGraph("Produto.comLoja")
+    Optional<Produto> findById(Long id);
+
+    @Override
+    @EntityGraph("Produto.comLoja")
+    List<Produto> findAllById(Iterable<Long> ids);
+
     List<Produto> findByLojaId(Long lojaId);
 
+    @EntityGraph("Produto.comLoja")
     List<Produto> findByLojaIdAndAtivoTrue(Long lojaId);
 
     List<Produto> findByCategoria(String categoria);
@@ -24,32 +44,150 @@ public interface ProdutoRepository extends JpaRepository<Produto, Long> {
 
     List<Produto> findByAtivoTrue();
 
-    @Query("SELECT p FROM Produto p WHERE p.loja.ativo = true AND p.ativo = true")
-    List<Produto> findProdutosAtivos();
+    // Carga dos índices de busca e sugestões: produto de loja desativada não aparece na busca
+    @Query("SELECT p FROM Produto p WHERE p.ativo = true AND p.loja.ativo = true")
+    List<Produto> findAtivosDeLojasAtivas();
 
+    @EntityGraph("Produto.comLoja")
     @Query("SELECT p FROM Produto p WHERE LOWER(p.nome) LIKE LOWER(CONCAT('%', :nome, '%')) " +
             "AND p.ativo = true")
     List<Produto> buscarPorNome(@Param("nome") String nome);
 
+    // Paginação por keyset no id: passe PageRequest.of(0, n) para limitar as linhas
+    @EntityGraph("Produto.comLoja")
     @Query("SELECT p FROM Produto p WHERE " +
+            "(LOWER(p.nome) LIKE LOWER(CONCAT('%', :termo, '%')) OR " +
+            "LOWER(p.descricao) LIKE LOWER(CONCAT('%', :termo, '%'))) " +
+            "AND p.ativo = true AND p.id > :aposId ORDER BY p.id")
+    List<Produto> buscarPorTermo(@Param("termo") String termo, @Param("aposId") Long aposId, Pageable pageable);
+
+    @Query("SELECT COUNT(p) FROM Produto p WHERE " +
             "(LOWER(p.nome) LIKE LOWER(CONCAT('%', :termo, '%')) OR " +
             "LOWER(p.descricao) LIKE LOWER(CONCAT('%', :termo, '%'))) " +
             "AND p.ativo = true")
-    List<Produto> buscarPorTermo(@Param("termo") String termo);
+    long contarPorTermo(@Param("termo") String termo);
+
+    // Listagem por keyset em (dataCriacao, id), do mais novo para o mais antigo. A comparação de tupla
+    // vira um único predicado no índice idx_produto_data_criacao, então qualquer página custa o mesmo
+    // que a primeira. Filtros nulos são ignorados. Passe PageRequest.of(0, n) para limitar as linhas.
+    @Query("SELECT p FROM Produto p JOIN FETCH p.loja l " +
+            "WHERE p.ativo = true AND l.ativo = true " +
+            "AND (:lojaId IS NULL OR l.id = :lojaId) " +
+            "AND (:categoria IS NULL OR p.categoria = :categoria) " +
+            "AND (:minPreco IS NULL OR p.preco >= :minPreco) " +
+            "AND (:maxPreco IS NULL OR p.preco <= :maxPreco) " +
+            "AND (p.dataCriacao, p.id) < (:aposData, :aposId) " +
+            "ORDER BY p.dataCriacao DESC, p.id DESC")
+    List<Produto> listarPorKeyset(@Param("lojaId") Long lojaId,
+                                  @Param("categoria") String categoria,
+                                  @Param("minPreco") BigDecimal minPreco,
+                                  @Param("maxPreco") BigDecimal maxPreco,
+                                  @Param("aposData") LocalDateTime aposData,
+                                  @Param("aposId") Long aposId,
+                                  Pageable pageable);
+
+    // Cursor só de ida para a exportação do catálogo: o Postgres entrega as linhas em lotes do fetch size
+    // (precisa de transação aberta) e o Hibernate não guarda snapshot de entidades somente leitura.
+    // Feche o Stream depois de usar.
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = AvailableHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT p FROM Produto p JOIN FETCH p.loja l WHERE p.ativo = true AND l.ativo = true ORDER BY p.id")
+    Stream<Produto> streamCatalogo();
 
     @Query("SELECT p FROM Produto p WHERE p.preco BETWEEN :minPreco AND :maxPreco " +
             "AND p.ativo = true")
     List<Produto> findByPrecoBetween(@Param("minPreco") BigDecimal minPreco,
                                      @Param("maxPreco") BigDecimal maxPreco);
 
+    @EntityGraph("Produto.comLoja")
     @Query("SELECT p FROM Produto p WHERE p.loja.id = :lojaId AND p.ativo = true " +
             "ORDER BY p.totalVendas DESC")
     Page<Produto> findMaisVendidosPorLoja(@Param("lojaId") Long lojaId, Pageable pageable);
 
-    @Query("SELECT p FROM Produto p WHERE p.destaque = true AND p.ativo = true " +
+    // Cache de consultas do Hibernate: o resultado guarda só os ids, e os produtos vêm do cache de entidades
+    @QueryHints({
+            @QueryHint(name = AvailableHints.HINT_CACHEABLE, value = "true"),
+            @QueryHint(name = AvailableHints.HINT_CACHE_REGION, value = "vitrine-produtos")
+    })
+    @EntityGraph("Produto.comLoja")
+    @Query("SELECT p FROM Produto p WHERE p.destaque = true AND p.ativo = true AND p.loja.ativo = true " +
             "ORDER BY p.dataCriacao DESC")
     Page<Produto> findProdutosDestaque(Pageable pageable);
 
     @Query("SELECT COUNT(p) FROM Produto p WHERE p.loja.id = :lojaId AND p.ativo = true")
     Long countProdutosAtivosPorLoja(@Param("lojaId") Long lojaId);
-}
\ No newline at end of file
+
+    // Quantidade do LojaDTO: mesma contagem (todos os produtos) da consulta agrupada das listagens
+    long countByLojaId(Long lojaId);
+
+    // Baixa condicional e atômica: a checagem de saldo e a escrita acontecem na mesma instrução,
+    // então vendas concorrentes não deixam o estoque negativo. Retorna 0 se não havia saldo.
+    @Transactional
+    @Modifying
+    @Query("UPDATE Produto p SET p.quantidade = p.quantidade - :quantidade, " +
+            "p.totalVendas = p.totalVendas + :vendas, p.dataAtualizacao = LOCAL_DATETIME " +
+            "WHERE p.id = :id AND p.quantidade >= :quantidade")
+    int baixarEstoque(@Param("id") Long id,
+                      @Param("quantidade") Long quantidade,
+                      @Param("vendas") Integer vendas);
+
+    // Baixa de vários produtos numa única instrução (checkout). As linhas são travadas em ordem de id
+    // antes do UPDATE, para dois checkouts com os mesmos produtos não se bloquearem em ordem cruzada.
+    // Os arrays deixam o SQL igual para qualquer tamanho de carrinho. Retorna os ids que tiveram baixa;
+    // os que faltarem não tinham saldo.
+    @Transactional
+    @Query(value = "WITH pedido AS (" +
+            "    SELECT * FROM unnest(CAST(:ids AS bigint[]), CAST(:quantidades AS bigint[])) AS v(id, qtd)" +
+            "), travados AS (" +
+            "    SELECT p.id FROM produtos p JOIN pedido v ON v.id = p.id ORDER BY p.id FOR UPDATE OF p" +
+            ") " +
+            "UPDATE produtos p SET quantidade = p.quantidade - v.qtd, " +
+            "    total_vendas = p.total_vendas + v.qtd, data_atualizacao = now() " +
+            "FROM pedido v JOIN travados t ON t.id = v.id " +
+            "WHERE p.id = v.id AND p.quantidade >= v.qtd " +
+            "RETURNING p.id", nativeQuery = true)
+    List<Long> baixarEstoqueEmLote(@Param("ids") Long[] ids, @Param("quantidades") Long[] quantidades);
+
+    // Atualização em massa de preço e/ou estoque da loja do vendedor. Campo null no array = coluna mantida.
+    // Linhas de outra loja ficam de fora pelo filtro de loja_id, e as que já têm os valores pedidos também,
+    // para não gerar escrita à toa. Trava em ordem de id, como a baixa do checkout, para as duas não se
+    // bloquearem em ordem cruzada. Retorna os ids efetivamente alterados.
+    @Transactional
+    @Query(value = "WITH alteracao AS (" +
+            "    SELECT * FROM unnest(CAST(:ids AS bigint[]), CAST(:precos AS numeric[]), CAST(:quantidades AS bigint[]))" +
+            "        AS v(id, preco, qtd)" +
+            "), travados AS (" +
+            "    SELECT p.id FROM produtos p JOIN alteracao v ON v.id = p.id WHERE p.loja_id = :lojaId " +
+            "    ORDER BY p.id FOR UPDATE OF p" +
+            ") " +
+            "UPDATE produtos p SET preco = COALESCE(v.preco, p.preco), " +
+            "    quantidade = COALESCE(v.qtd, p.quantidade), data_atualizacao = now() " +
+            "FROM alteracao v JOIN travados t ON t.id = v.id " +
+            "WHERE p.id = v.id " +
+            "AND (p.preco <> COALESCE(v.preco, p.preco) OR p.quantidade <> COALESCE(v.qtd, p.quantidade)) " +
+            "RETURNING p.id", nativeQuery = true)
+    List<Long> atualizarPrecoEstoqueEmLote(@Param("lojaId") Long lojaId,
+                                           @Param("ids") Long[] ids,
+                                           @Param("precos") BigDecimal[] precos,
+                                           @Param("quantidades") Long[] quantidades);
+
+    // Reajuste percentual dos produtos ativos da loja (opcionalmente de uma categoria), um bloco de ids
+    // por vez em ordem de id: cada chamada trava e devolve no máximo :lote linhas. O preço é arredondado
+    // para centavos e fica entre 0,01 e o máximo da coluna. O maior id devolvido é o próximo :aposId.
+    @Transactional
+    @Query(value = "UPDATE produtos p SET preco = LEAST(GREATEST(ROUND(p.preco * :fator, 2), 0.01), 99999999.99), " +
+            "    data_atualizacao = now() " +
+            "WHERE p.id IN (" +
+            "    SELECT b.id FROM produtos b WHERE b.loja_id = :lojaId AND b.ativo = true AND b.id > :aposId " +
+            "    AND (CAST(:categoria AS varchar) IS NULL OR b.categoria = CAST(:categoria AS varchar)) " +
+            "    ORDER BY b.id LIMIT :lote FOR UPDATE" +
+            ") " +
+            "RETURNING p.id", nativeQuery = true)
+    List<Long> reajustarPrecosEmLote(@Param("lojaId") Long lojaId,
+                                     @Param("categoria") String categoria,
+                                     @Param("fator") BigDecimal fator,
+                                     @Param("aposId") Long aposId,
+                                     @Param("lote") int lote);
+}
@@ -1,6 +1,7 @@
 package io.github.brunoeugeniodev.marketplace.repository;
 
 import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -12,6 +13,12 @@ import java.util.Optional;
 @Repository
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
+    // Roles junto com o usuário: o UsuarioDTO e as authorities do principal são montados fora da transação
+    @Override
+    @EntityGraph("Usuario.comRoles")
+    Optional<Usuario> findById(Long id);
+
+    @EntityGraph("Usuario.comRoles")
     Optional<Usuario> findByEmail(String email);
 
     Optional<Usuario> findByCpf(String cpf);
@@ -20,6 +27,7 @@ public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
 
     boolean existsByCpf(String cpf);
 
+    @EntityGraph("Usuario.comRoles")
     List<Usuario> findByAtivoTrue();
 
     List<Usuario> findByRolesContains(String role);
@@ -0,0 +1,126 @@
+package io.github.brunoeugeniodev.marketplace.service;
+
+import io.github.brunoeugeniodev.marketplace.dto.AtualizacaoProdutosDTO;
+import io.github.brunoeugeniodev.marketplace.dto.ResultadoAtualizacaoProdutosDTO;
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Atualização em massa de preço e estoque dos produtos de uma loja, sem carregar entidades:
+ * a posse da loja é verificada uma vez e as alterações viram UPDATEs set-based em lotes,
+ * que só mexem em preco, quantidade e data_atualizacao.
+ * <ul>
+ *   <li>Lista de {id, preco, quantidade}: cada lote na sua transação. Os valores são absolutos,
+ *   então repetir a requisição depois de uma falha no meio é seguro.</li>
+ *   <li>Regra de reajuste percentual: todos os blocos na mesma transação, porque reaplicar
+ *   "+10%" depois de uma falha parcial reajustaria duas vezes os produtos já gravados.</li>
+ * </ul>
+ */
+@Service
+@Slf4j
+public class AtualizacaoProdutosService {
+
+    private static final BigDecimal CEM = BigDecimal.valueOf(100);
+
+    private final ProdutoService produtoService;
+    private final TransactionTemplate transacao;
+
+    @Value("${atualizacao.produtos.lote:500}")
+    private int tamanhoLote;
+
+    public AtualizacaoProdutosService(ProdutoService produtoService,
+                                      PlatformTransactionManager transactionManager) {
+        this.produtoService = produtoService;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    public ResultadoAtualizacaoProdutosDTO atualizar(Loja loja, Usuario usuario, AtualizacaoProdutosDTO pedido) {
+        boolean temItens = pedido.getItens() != null && !pedido.getItens().isEmpty();
+        if (temItens == (pedido.getRegra() != null)) {
+            throw new ValidationException("Informe a lista de itens ou a regra de reajuste (apenas um dos dois)");
+        }
+        if (!loja.getUsuario().getId().equals(usuario.getId())) {
+            throw new ValidationException("Você não tem permissão para editar produtos desta loja");
+        }
+
+        long inicio = System.currentTimeMillis();
+        ResultadoAtualizacaoProdutosDTO resultado = temItens
+                ? atualizarItens(loja.getId(), pedido.getItens())
+                : reajustar(loja.getId(), pedido.getRegra());
+        resultado.setDuracaoMs(System.currentTimeMillis() - inicio);
+
+        log.info("Atualização em massa da loja {}: {} solicitados, {} atualizados em {} ms",
+                loja.getId(), resultado.getSolicitados(), resultado.getAtualizados(), resultado.getDuracaoMs());
+        return resultado;
+    }
+
+    private ResultadoAtualizacaoProdutosDTO atualizarItens(Long lojaId, List<AtualizacaoProdutosDTO.Item> itens) {
+        List<ProdutoService.AlteracaoPrecoEstoque> alteracoes = new ArrayList<>(itens.size());
+        Set<Long> ids = new LinkedHashSet<>();
+        for (AtualizacaoProdutosDTO.Item item : itens) {
+            if (item.getPreco() == null && item.getQuantidade() == null) {
+                throw new ValidationException("Produto " + item.getId() + ": informe preço e/ou quantidade");
+            }
+            if (!ids.add(item.getId())) {
+                throw new ValidationException("Produto " + item.getId() + " aparece mais de uma vez");
+            }
+            alteracoes.add(new ProdutoService.AlteracaoPrecoEstoque(item.getId(), item.getPreco(), item.getQuantidade()));
+        }
+
+        Set<Long> naoAlterados = new LinkedHashSet<>(ids);
+        long atualizados = 0;
+        for (int i = 0; i < alteracoes.size(); i += tamanhoLote) {
+            List<ProdutoService.AlteracaoPrecoEstoque> lote =
+                    alteracoes.subList(i, Math.min(i + tamanhoLote, alteracoes.size()));
+            List<Long> alterados = produtoService.atualizarPrecoEstoqueEmLote(lojaId, lote);
+            alterados.forEach(naoAlterados::remove);
+            atualizados += alterados.size();
+        }
+
+        return ResultadoAtualizacaoProdutosDTO.builder()
+                .solicitados(ids.size())
+                .atualizados(atualizados)
+                .naoAlterados(new ArrayList<>(naoAlterados))
+                .build();
+    }
+
+    private ResultadoAtualizacaoProdutosDTO reajustar(Long lojaId, AtualizacaoProdutosDTO.Regra regra) {
+        if (regra.getPercentual().signum() == 0) {
+            throw new ValidationException("Percentual de reajuste não pode ser zero");
+        }
+        BigDecimal fator = BigDecimal.ONE.add(regra.getPercentual().divide(CEM));
+        String categoria = regra.getCategoria() != null && !regra.getCategoria().isBlank()
+                ? regra.getCategoria().trim()
+                : null;
+
+        Long atualizados = transacao.execute(status -> {
+            long total = 0;
+            long aposId = 0;
+            while (true) {
+                List<Long> bloco = produtoService.reajustarPrecosEmLote(lojaId, categoria, fator, aposId, tamanhoLote);
+                if (bloco.isEmpty()) {
+                    return total;
+                }
+                total += bloco.size();
+                aposId = bloco.stream().mapToLong(Long::longValue).max().getAsLong();
+            }
+        });
+
+        return ResultadoAtualizacaoProdutosDTO.builder()
+                .solicitados(atualizados)
+                .atualizados(atualizados)
+                .build();
+    }
+}
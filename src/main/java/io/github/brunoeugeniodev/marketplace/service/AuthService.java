@@ -38,7 +38,7 @@ public class AuthService {
             // Obtém UserDetails do Spring Security
             UserDetails userDetails = (UserDetails) authentication.getPrincipal();
 
-            // Gera token
+            // Gera token (expiresIn é a validade configurada: o token acabou de ser assinado, não há o que verificar)
             String token = jwtUtil.generateToken(userDetails);
 
             // Busca usuário completo para obter nome
@@ -53,7 +53,7 @@ public class AuthService {
                     .roles(userDetails.getAuthorities().stream()
                             .map(GrantedAuthority::getAuthority)
                             .collect(Collectors.toList()))
-                    .expiresIn(jwtUtil.getTimeUntilExpiration(token))
+                    .expiresIn(jwtUtil.getExpirationMs())
                     .build();
 
         } catch (BadCredentialsException e) {
@@ -0,0 +1,146 @@
+package io.github.brunoeugeniodev.marketplace.service;
+
+import io.github.brunoeugeniodev.marketplace.dto.LojaDTO;
+import io.github.brunoeugeniodev.marketplace.dto.LojaListagemDTO;
+import io.github.brunoeugeniodev.marketplace.dto.PaginaCursorDTO;
+import io.github.brunoeugeniodev.marketplace.dto.ProdutoDTO;
+import io.github.brunoeugeniodev.marketplace.dto.SearchResultDTO;
+import io.github.brunoeugeniodev.marketplace.exception.ApiException;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.util.MapperUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Busca unificada: lojas e produtos são consultados em paralelo, cada um com seu próprio timeout.
+ * Se uma das consultas falhar ou estourar o tempo, a resposta sai com a outra lista e a flag "parcial".
+ * O mesmo prazo vale como timeout da transação de cada consulta, para a que estourou ser cancelada no banco
+ * e devolver a conexão, em vez de seguir rodando depois de a resposta já ter saído.
+ */
+@Service
+@Slf4j
+public class BuscaService {
+
+    private final LojaService lojaService;
+    private final ProdutoService produtoService;
+    private final MapperUtil mapperUtil;
+    private final ExecutorService buscaExecutor;
+    private final PlatformTransactionManager transactionManager;
+    private TransactionTemplate transacaoLojas;
+    private TransactionTemplate transacaoProdutos;
+
+    @Value("${busca.lojas.timeout-ms:800}")
+    private long timeoutLojasMs;
+
+    @Value("${busca.produtos.timeout-ms:800}")
+    private long timeoutProdutosMs;
+
+    public BuscaService(LojaService lojaService,
+                        ProdutoService produtoService,
+                        MapperUtil mapperUtil,
+                        @Qualifier("buscaExecutor") ExecutorService buscaExecutor,
+                        PlatformTransactionManager transactionManager) {
+        this.lojaService = lojaService;
+        this.produtoService = produtoService;
+        this.mapperUtil = mapperUtil;
+        this.buscaExecutor = buscaExecutor;
+        this.transactionManager = transactionManager;
+    }
+
+    @PostConstruct
+    void init() {
+        transacaoLojas = transacaoLeitura(timeoutLojasMs);
+        transacaoProdutos = transacaoLeitura(timeoutProdutosMs);
+    }
+
+    public SearchResultDTO buscar(String termo, String cursorLojas, String cursorProdutos, int limite) {
+        CompletableFuture<PaginaCursorDTO<LojaDTO>> lojas = executar("lojas", timeoutLojasMs, transacaoLojas,
+                () -> {
+                    PaginaCursorDTO<LojaListagemDTO> pagina = lojaService.buscarPorTermo(termo, cursorLojas, limite);
+                    return new PaginaCursorDTO<>(mapperUtil.mapList(pagina.getItens(), LojaDTO.class),
+                            pagina.getProximoCursor(), pagina.getTotal());
+                });
+
+        CompletableFuture<PaginaCursorDTO<ProdutoDTO>> produtos = executar("produtos", timeoutProdutosMs,
+                transacaoProdutos, () -> {
+                    PaginaCursorDTO<Produto> pagina = produtoService.buscarPorTermo(termo, cursorProdutos, limite);
+                    return new PaginaCursorDTO<>(mapperUtil.mapList(pagina.getItens(), ProdutoDTO.class),
+                            pagina.getProximoCursor(), pagina.getTotal());
+                });
+
+        PaginaCursorDTO<LojaDTO> paginaLojas = aguardar(lojas);
+        PaginaCursorDTO<ProdutoDTO> paginaProdutos = aguardar(produtos);
+        boolean parcial = paginaLojas == null || paginaProdutos == null;
+
+        if (paginaLojas == null) {
+            paginaLojas = paginaVazia();
+        }
+        if (paginaProdutos == null) {
+            paginaProdutos = paginaVazia();
+        }
+
+        return SearchResultDTO.builder()
+                .lojas(paginaLojas.getItens())
+                .produtos(paginaProdutos.getItens())
+                .totalLojas(paginaLojas.getTotal())
+                .totalProdutos(paginaProdutos.getTotal())
+                .proximoCursorLojas(paginaLojas.getProximoCursor())
+                .proximoCursorProdutos(paginaProdutos.getProximoCursor())
+                .parcial(parcial)
+                .build();
+    }
+
+    // Roda a consulta e o mapeamento para DTO na mesma transação de leitura: fora dela
+    // o EntityManager já fechou e nada mais carrega sob demanda
+    private <T> CompletableFuture<PaginaCursorDTO<T>> executar(String nome, long timeoutMs,
+                                                               TransactionTemplate transacao,
+                                                               Supplier<PaginaCursorDTO<T>> busca) {
+        return CompletableFuture
+                .supplyAsync(() -> transacao.execute(status -> busca.get()), buscaExecutor)
+                .completeOnTimeout(null, timeoutMs, TimeUnit.MILLISECONDS)
+                .whenComplete((pagina, erro) -> {
+                    if (erro == null && pagina == null) {
+                        log.warn("Busca de {} excedeu {} ms, retornando resultado parcial", nome, timeoutMs);
+                    }
+                });
+    }
+
+    // O JpaTransactionManager repassa o tempo restante da transação a cada consulta como
+    // jakarta.persistence.query.timeout, e o driver cancela o comando no prazo. O timeout de transação é em
+    // segundos: o prazo em ms é arredondado para cima
+    private TransactionTemplate transacaoLeitura(long timeoutMs) {
+        TransactionTemplate transacao = new TransactionTemplate(transactionManager);
+        transacao.setReadOnly(true);
+        transacao.setTimeout((int) Math.max(1, (timeoutMs + 999) / 1000));
+        return transacao;
+    }
+
+    private <T> PaginaCursorDTO<T> aguardar(CompletableFuture<PaginaCursorDTO<T>> futuro) {
+        try {
+            return futuro.join();
+        } catch (CompletionException e) {
+            // Erros de entrada (ex.: cursor inválido) sobem para o cliente; o resto vira resultado parcial
+            if (e.getCause() instanceof ApiException apiException) {
+                throw apiException;
+            }
+            log.error("Falha em uma das consultas da busca: {}", e.getMessage(), e);
+            return null;
+        }
+    }
+
+    private static <T> PaginaCursorDTO<T> paginaVazia() {
+        return new PaginaCursorDTO<>(List.of(), null, null);
+    }
+}
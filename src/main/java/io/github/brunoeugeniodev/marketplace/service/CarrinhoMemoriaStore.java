@@ -0,0 +1,597 @@
+package io.github.brunoeugeniodev.marketplace.service;
+
+import io.github.brunoeugeniodev.marketplace.event.CompraFinalizadaEvent;
+import io.github.brunoeugeniodev.marketplace.exception.ResourceNotFoundException;
+import io.github.brunoeugeniodev.marketplace.models.Carrinho;
+import io.github.brunoeugeniodev.marketplace.models.ItemCarrinho;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.repository.CarrinhoRepository;
+import io.github.brunoeugeniodev.marketplace.repository.ProdutoRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ValidationException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * Armazenamento write-behind dos carrinhos, ligado por carrinho.write-behind.enabled.
+ * <p>
+ * Os carrinhos ficam em memória (um lock por faixa de usuário) e as alterações são gravadas em
+ * carrinhos/itens_carrinho em lotes: a cada intervalo, no checkout do usuário e no desligamento.
+ * Antes de alterar a memória, cada operação é anexada a um journal local; os arquivos só são apagados
+ * depois que o lote correspondente foi gravado no banco, e na subida os que sobraram são reaplicados.
+ * <p>
+ * No modo em memória o id de um item é o id do produto (cada produto aparece uma vez por carrinho), e cada
+ * item guarda a versão do carrinho em que foi gravado pela última vez.
+ */
+@Component
+@Slf4j
+public class CarrinhoMemoriaStore {
+
+    private static final int FAIXAS = 64;
+    private static final String PREFIXO_JOURNAL = "carrinhos-";
+    private static final String SUFIXO_JOURNAL = ".journal";
+
+    private final CarrinhoRepository carrinhoRepository;
+    private final ProdutoRepository produtoRepository;
+    private final UsuarioService usuarioService;
+    private final TransactionTemplate transacao;
+
+    @Value("${carrinho.write-behind.enabled:false}")
+    private boolean habilitado;
+
+    @Value("${carrinho.write-behind.journal-dir:data/carrinho-journal}")
+    private String diretorioJournal;
+
+    @Value("${carrinho.write-behind.lote:100}")
+    private int tamanhoLote;
+
+    // Carrinhos já gravados e sem acesso há mais que isso saem da memória
+    @Value("${carrinho.write-behind.ociosidade-ms:1800000}")
+    private long ociosidadeMs;
+
+    private final Map<String, CarrinhoMemoria> carrinhos = new ConcurrentHashMap<>();
+    private final ReentrantLock[] faixas = new ReentrantLock[FAIXAS];
+    private final ReentrantLock journalLock = new ReentrantLock();
+    private final ReentrantLock descargaLock = new ReentrantLock();
+
+    private BufferedWriter journal;
+    private long sequenciaJournal;
+
+    public CarrinhoMemoriaStore(CarrinhoRepository carrinhoRepository,
+                                ProdutoRepository produtoRepository,
+                                UsuarioService usuarioService,
+                                PlatformTransactionManager transactionManager) {
+        this.carrinhoRepository = carrinhoRepository;
+        this.produtoRepository = produtoRepository;
+        this.usuarioService = usuarioService;
+        this.transacao = new TransactionTemplate(transactionManager);
+        for (int i = 0; i < FAIXAS; i++) {
+            faixas[i] = new ReentrantLock();
+        }
+    }
+
+    public boolean isHabilitado() {
+        return habilitado;
+    }
+
+    public Estado obter(String email) {
+        ReentrantLock faixa = faixa(email);
+        faixa.lock();
+        try {
+            return carregar(email).estado();
+        } finally {
+            faixa.unlock();
+        }
+    }
+
+    // Soma a quantidade ao item do produto; a checagem de estoque acontece sob o lock do carrinho
+    public Estado adicionar(String email, Long produtoId, int quantidade, BigDecimal preco, long estoque) {
+        ReentrantLock faixa = faixa(email);
+        faixa.lock();
+        try {
+            CarrinhoMemoria carrinho = carregar(email);
+            Item atual = carrinho.itens.get(produtoId);
+            int quantidadeAtual = atual != null ? atual.quantidade() : 0;
+
+            if (estoque < quantidadeAtual + quantidade) {
+                throw new ValidationException(
+                        String.format("Estoque insuficiente. Disponível: %d", estoque - quantidadeAtual)
+                );
+            }
+
+            definir(carrinho, email, produtoId, quantidadeAtual + quantidade, preco);
+            return carrinho.estado();
+        } finally {
+            faixa.unlock();
+        }
+    }
+
+    public Estado atualizar(String email, Long produtoId, int quantidade, long estoque) {
+        ReentrantLock faixa = faixa(email);
+        faixa.lock();
+        try {
+            CarrinhoMemoria carrinho = carregar(email);
+            Item atual = itemExistente(carrinho, produtoId);
+
+            if (estoque < quantidade) {
+                throw new ValidationException(String.format("Estoque insuficiente. Disponível: %d", estoque));
+            }
+
+            definir(carrinho, email, produtoId, quantidade, atual.precoUnitario());
+            return carrinho.estado();
+        } finally {
+            faixa.unlock();
+        }
+    }
+
+    public Estado remover(String email, Long produtoId) {
+        ReentrantLock faixa = faixa(email);
+        faixa.lock();
+        try {
+            CarrinhoMemoria carrinho = carregar(email);
+            itemExistente(carrinho, produtoId);
+            definir(carrinho, email, produtoId, 0, null);
+            return carrinho.estado();
+        } finally {
+            faixa.unlock();
+        }
+    }
+
+    // Tira do carrinho itens cujo produto não existe mais; retorna true se algum saiu
+    public boolean descartarProdutos(String email, Collection<Long> produtoIds) {
+        ReentrantLock faixa = faixa(email);
+        faixa.lock();
+        try {
+            CarrinhoMemoria carrinho = carregar(email);
+            boolean descartou = false;
+            for (Long produtoId : produtoIds) {
+                if (carrinho.itens.containsKey(produtoId)) {
+                    definir(carrinho, email, produtoId, 0, null);
+                    descartou = true;
+                }
+            }
+            return descartou;
+        } finally {
+            faixa.unlock();
+        }
+    }
+
+    public Estado limpar(String email) {
+        ReentrantLock faixa = faixa(email);
+        faixa.lock();
+        try {
+            CarrinhoMemoria carrinho = carregar(email);
+            escreverJournal("L\t" + email);
+            carrinho.itens.clear();
+            carrinho.versao++;
+            return carrinho.estado();
+        } finally {
+            faixa.unlock();
+        }
+    }
+
+    /**
+     * Grava o carrinho do usuário no banco dentro da transação corrente (usado pelo checkout) e devolve
+     * a foto gravada. Não marca o carrinho como gravado: se a transação for desfeita, a próxima descarga
+     * grava de novo.
+     */
+    public Estado sincronizar(String email) {
+        Estado estado = obter(email);
+        gravar(email, estado);
+        return estado;
+    }
+
+    @Scheduled(fixedDelayString = "${carrinho.write-behind.intervalo-ms:5000}")
+    public void descarregarAgendado() {
+        if (habilitado) {
+            descarregar();
+        }
+    }
+
+    public void descarregar() {
+        // Se já há uma descarga em andamento, esta não tem o que acrescentar
+        if (!descargaLock.tryLock()) {
+            return;
+        }
+        try {
+            // Operações anteriores à rotação estão no journal fechado e entram na foto abaixo
+            long ultimoJournal = rotacionarJournal();
+            List<Map.Entry<String, Estado>> sujos = fotografarSujos();
+
+            boolean gravouTudo = true;
+            for (int i = 0; i < sujos.size(); i += tamanhoLote) {
+                List<Map.Entry<String, Estado>> lote = sujos.subList(i, Math.min(i + tamanhoLote, sujos.size()));
+                try {
+                    Map<String, Long> ids = transacao.execute(status -> gravarLote(lote));
+                    marcarGravados(lote, ids);
+                } catch (RuntimeException e) {
+                    gravouTudo = false;
+                    log.error("Falha ao gravar lote de {} carrinhos; serão regravados na próxima descarga: {}",
+                            lote.size(), e.getMessage(), e);
+                }
+            }
+
+            if (gravouTudo) {
+                apagarJournais(ultimoJournal);
+            }
+            if (!sujos.isEmpty()) {
+                log.debug("Descarga de carrinhos: {} gravados", sujos.size());
+            }
+        } finally {
+            descargaLock.unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCompraFinalizada(CompraFinalizadaEvent evento) {
+        String email = evento.getEmail();
+        ReentrantLock faixa = faixa(email);
+        faixa.lock();
+        try {
+            CarrinhoMemoria carrinho = carrinhos.get(email);
+            if (carrinho == null) {
+                return;
+            }
+            // Só saem os itens ainda na versão que foi comprada. O que entrou ou mudou entre a foto do
+            // checkout e este commit continua na memória, e o carrinho sujo leva isso ao banco na próxima descarga
+            boolean restouItem = false;
+            for (Item item : List.copyOf(carrinho.itens.values())) {
+                Long versaoComprada = evento.getVersoesItens().get(item.produtoId());
+                if (versaoComprada != null && versaoComprada == item.versao()) {
+                    definir(carrinho, email, item.produtoId(), 0, null);
+                } else {
+                    restouItem = true;
+                }
+            }
+            if (!restouItem) {
+                // O banco ficou vazio no checkout e a memória também
+                carrinho.versaoGravada = carrinho.versao;
+            }
+        } finally {
+            faixa.unlock();
+        }
+    }
+
+    // Roda antes de a aplicação atender requisições, para que nenhuma alteração nova
+    // seja sobrescrita pela reaplicação de um journal antigo
+    @PostConstruct
+    void recuperar() {
+        if (!habilitado) {
+            return;
+        }
+
+        List<Path> arquivos = listarJournais();
+        sequenciaJournal = arquivos.isEmpty() ? 1 : sequencia(arquivos.get(arquivos.size() - 1)) + 1;
+        if (arquivos.isEmpty()) {
+            return;
+        }
+
+        log.warn("Recuperando {} arquivo(s) de journal de carrinhos", arquivos.size());
+        for (Path arquivo : arquivos) {
+            try (Stream<String> linhas = Files.lines(arquivo, StandardCharsets.UTF_8)) {
+                linhas.forEach(this::reaplicar);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao ler o journal de carrinhos " + arquivo, e);
+            }
+        }
+
+        // Tudo o que foi recuperado está sujo: grava agora e só então os journals são apagados
+        descarregar();
+    }
+
+    @PreDestroy
+    void encerrar() {
+        if (habilitado) {
+            descarregar();
+        }
+        journalLock.lock();
+        try {
+            fecharJournal();
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // Deve ser chamado com o lock da faixa do email
+    private CarrinhoMemoria carregar(String email) {
+        CarrinhoMemoria carrinho = carrinhos.get(email);
+        if (carrinho == null) {
+            // Transação de escrita de propósito: com réplicas, leituras read-only podem ir para uma réplica
+            // atrasada, e o estado lido aqui é o que a próxima descarga grava por cima do banco
+            carrinho = transacao.execute(status -> lerDoBanco(email));
+            carrinhos.put(email, carrinho);
+        }
+        carrinho.ultimoAcesso = System.currentTimeMillis();
+        return carrinho;
+    }
+
+    private CarrinhoMemoria lerDoBanco(String email) {
+        return carrinhoRepository.findByUsuarioEmailComItens(email)
+                .map(carrinho -> {
+                    CarrinhoMemoria memoria = new CarrinhoMemoria(carrinho.getId(),
+                            carrinho.getUsuario().getId(), carrinho.getUsuario().getNome());
+                    for (ItemCarrinho item : carrinho.getItens()) {
+                        Long produtoId = item.getProduto().getId();
+                        memoria.itens.put(produtoId,
+                                new Item(produtoId, item.getQuantidade(), item.getPrecoUnitario(), 0));
+                    }
+                    return memoria;
+                })
+                .orElseGet(() -> {
+                    Usuario usuario = usuarioService.loadUsuarioByUsername(email);
+                    return new CarrinhoMemoria(null, usuario.getId(), usuario.getNome());
+                });
+    }
+
+    // Deve ser chamado com o lock da faixa do email; journal primeiro, memória depois
+    private void definir(CarrinhoMemoria carrinho, String email, Long produtoId, int quantidade, BigDecimal preco) {
+        escreverJournal("D\t" + email + "\t" + produtoId + "\t" + quantidade + "\t"
+                + (preco != null ? preco.toPlainString() : ""));
+        aplicar(carrinho, produtoId, quantidade, preco);
+    }
+
+    private static void aplicar(CarrinhoMemoria carrinho, Long produtoId, int quantidade, BigDecimal preco) {
+        carrinho.versao++;
+        if (quantidade <= 0) {
+            carrinho.itens.remove(produtoId);
+        } else {
+            carrinho.itens.put(produtoId, new Item(produtoId, quantidade, preco, carrinho.versao));
+        }
+    }
+
+    private static Item itemExistente(CarrinhoMemoria carrinho, Long produtoId) {
+        Item item = carrinho.itens.get(produtoId);
+        if (item == null) {
+            throw new ResourceNotFoundException("Item não encontrado");
+        }
+        return item;
+    }
+
+    private void reaplicar(String linha) {
+        String[] campos = linha.split("\t", -1);
+        try {
+            String email = campos[1];
+            ReentrantLock faixa = faixa(email);
+            faixa.lock();
+            try {
+                CarrinhoMemoria carrinho = carregar(email);
+                if ("L".equals(campos[0])) {
+                    carrinho.itens.clear();
+                    carrinho.versao++;
+                } else if ("D".equals(campos[0])) {
+                    BigDecimal preco = campos[4].isEmpty() ? null : new BigDecimal(campos[4]);
+                    aplicar(carrinho, Long.valueOf(campos[2]), Integer.parseInt(campos[3]), preco);
+                }
+            } finally {
+                faixa.unlock();
+            }
+        } catch (RuntimeException e) {
+            // Normalmente a última linha, cortada por uma queda no meio da escrita
+            log.warn("Linha de journal de carrinho ignorada: '{}' ({})", linha, e.getMessage());
+        }
+    }
+
+    private List<Map.Entry<String, Estado>> fotografarSujos() {
+        List<Map.Entry<String, Estado>> sujos = new ArrayList<>();
+        long agora = System.currentTimeMillis();
+
+        for (String email : carrinhos.keySet()) {
+            ReentrantLock faixa = faixa(email);
+            faixa.lock();
+            try {
+                CarrinhoMemoria carrinho = carrinhos.get(email);
+                if (carrinho == null) {
+                    continue;
+                }
+                if (carrinho.versao > carrinho.versaoGravada) {
+                    sujos.add(Map.entry(email, carrinho.estado()));
+                } else if (agora - carrinho.ultimoAcesso > ociosidadeMs) {
+                    carrinhos.remove(email);
+                }
+            } finally {
+                faixa.unlock();
+            }
+        }
+        return sujos;
+    }
+
+    private Map<String, Long> gravarLote(List<Map.Entry<String, Estado>> lote) {
+        Map<String, Long> ids = new HashMap<>();
+        for (Map.Entry<String, Estado> entrada : lote) {
+            ids.put(entrada.getKey(), gravar(entrada.getKey(), entrada.getValue()));
+        }
+        return ids;
+    }
+
+    // Deixa o carrinho do banco igual à foto da memória; precisa de uma transação aberta
+    private Long gravar(String email, Estado estado) {
+        Carrinho carrinho = carrinhoRepository.findByUsuarioEmailComItens(email)
+                .orElseGet(() -> carrinhoRepository.save(Carrinho.builder()
+                        .usuario(usuarioService.loadUsuarioByUsername(email))
+                        .itens(new ArrayList<>())
+                        .build()));
+
+        Map<Long, Item> desejados = new HashMap<>();
+        estado.itens().forEach(item -> desejados.put(item.produtoId(), item));
+
+        for (ItemCarrinho existente : new ArrayList<>(carrinho.getItens())) {
+            Item item = desejados.remove(existente.getProduto().getId());
+            if (item == null) {
+                carrinho.removerItem(existente);
+            } else if (existente.getQuantidade() != item.quantidade()
+                    || !Objects.equals(existente.getPrecoUnitario(), item.precoUnitario())) {
+                existente.setQuantidade(item.quantidade());
+                existente.setPrecoUnitario(item.precoUnitario());
+            }
+        }
+
+        for (Item item : desejados.values()) {
+            carrinho.adicionarItem(ItemCarrinho.builder()
+                    .produto(produtoRepository.getReferenceById(item.produtoId()))
+                    .quantidade(item.quantidade())
+                    .precoUnitario(item.precoUnitario())
+                    .build());
+        }
+        return carrinho.getId();
+    }
+
+    private void marcarGravados(List<Map.Entry<String, Estado>> lote, Map<String, Long> ids) {
+        for (Map.Entry<String, Estado> entrada : lote) {
+            ReentrantLock faixa = faixa(entrada.getKey());
+            faixa.lock();
+            try {
+                CarrinhoMemoria carrinho = carrinhos.get(entrada.getKey());
+                if (carrinho != null) {
+                    carrinho.versaoGravada = Math.max(carrinho.versaoGravada, entrada.getValue().versao());
+                    if (carrinho.carrinhoId == null) {
+                        carrinho.carrinhoId = ids.get(entrada.getKey());
+                    }
+                }
+            } finally {
+                faixa.unlock();
+            }
+        }
+    }
+
+    private void escreverJournal(String linha) {
+        journalLock.lock();
+        try {
+            if (journal == null) {
+                Path diretorio = Paths.get(diretorioJournal);
+                Files.createDirectories(diretorio);
+                journal = Files.newBufferedWriter(diretorio.resolve(nomeJournal(sequenciaJournal)),
+                        StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            journal.write(linha);
+            journal.newLine();
+            journal.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao gravar o journal de carrinhos", e);
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // Fecha o arquivo corrente e passa a escrever no próximo; retorna a sequência do que foi fechado
+    private long rotacionarJournal() {
+        journalLock.lock();
+        try {
+            fecharJournal();
+            return sequenciaJournal++;
+        } finally {
+            journalLock.unlock();
+        }
+    }
+
+    // Deve ser chamado com o journalLock
+    private void fecharJournal() {
+        if (journal == null) {
+            return;
+        }
+        try {
+            journal.close();
+        } catch (IOException e) {
+            log.warn("Falha ao fechar o journal de carrinhos: {}", e.getMessage());
+        }
+        journal = null;
+    }
+
+    private void apagarJournais(long ate) {
+        for (Path arquivo : listarJournais()) {
+            if (sequencia(arquivo) <= ate) {
+                try {
+                    Files.deleteIfExists(arquivo);
+                } catch (IOException e) {
+                    log.warn("Falha ao apagar o journal de carrinhos {}: {}", arquivo, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private List<Path> listarJournais() {
+        Path diretorio = Paths.get(diretorioJournal);
+        if (!Files.isDirectory(diretorio)) {
+            return List.of();
+        }
+        try (Stream<Path> arquivos = Files.list(diretorio)) {
+            return arquivos
+                    .filter(arquivo -> {
+                        String nome = arquivo.getFileName().toString();
+                        return nome.startsWith(PREFIXO_JOURNAL) && nome.endsWith(SUFIXO_JOURNAL);
+                    })
+                    .sorted(Comparator.comparingLong(CarrinhoMemoriaStore::sequencia))
+                    .toList();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Falha ao listar os journals de carrinhos", e);
+        }
+    }
+
+    private static String nomeJournal(long sequencia) {
+        return PREFIXO_JOURNAL + sequencia + SUFIXO_JOURNAL;
+    }
+
+    private static long sequencia(Path arquivo) {
+        String nome = arquivo.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO_JOURNAL.length(), nome.length() - SUFIXO_JOURNAL.length()));
+    }
+
+    private ReentrantLock faixa(String email) {
+        return faixas[Math.floorMod(email.hashCode(), FAIXAS)];
+    }
+
+    // Estado mutável de um carrinho; só é lido ou alterado com o lock da faixa
+    private static final class CarrinhoMemoria {
+        private Long carrinhoId;
+        private final Long usuarioId;
+        private final String usuarioNome;
+        private final Map<Long, Item> itens = new LinkedHashMap<>();
+        private long versao;
+        private long versaoGravada;
+        private long ultimoAcesso;
+
+        private CarrinhoMemoria(Long carrinhoId, Long usuarioId, String usuarioNome) {
+            this.carrinhoId = carrinhoId;
+            this.usuarioId = usuarioId;
+            this.usuarioNome = usuarioNome;
+        }
+
+        private Estado estado() {
+            return new Estado(carrinhoId, usuarioId, usuarioNome, List.copyOf(itens.values()), versao);
+        }
+    }
+
+    // Foto imutável de um carrinho, para montar a resposta e para gravar no banco
+    public record Estado(Long carrinhoId, Long usuarioId, String usuarioNome, List<Item> itens, long versao) {
+
+        // produtoId -> versão do item, para o evento do checkout
+        public Map<Long, Long> versoesItens() {
+            Map<Long, Long> versoes = new HashMap<>();
+            itens.forEach(item -> versoes.put(item.produtoId(), item.versao()));
+            return versoes;
+        }
+    }
+
+    public record Item(Long produtoId, int quantidade, BigDecimal precoUnitario, long versao) {
+    }
+}
@@ -4,6 +4,8 @@
 // CarrinhoService.java
 package io.github.brunoeugeniodev.marketplace.service;
 
+import io.github.brunoeugeniodev.marketplace.event.CarrinhoAlteradoEvent;
+import io.github.brunoeugeniodev.marketplace.event.CompraFinalizadaEvent;
 import io.github.brunoeugeniodev.marketplace.exception.ResourceNotFoundException;
 import io.github.brunoeugeniodev.marketplace.models.*;
 import io.github.brunoeugeniodev.marketplace.repository.CarrinhoRepository;
@@ -11,10 +13,16 @@ import io.github.brunoeugeniodev.marketplace.repository.ItemCarrinhoRepository;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -25,26 +33,60 @@ public class CarrinhoService {
     private final ItemCarrinhoRepository itemCarrinhoRepository;
     private final ProdutoService produtoService;
     private final UsuarioService usuarioService;
+    private final CarrinhoMemoriaStore carrinhoMemoriaStore;
+    private final ContadorCarrinhoCache contadorCarrinhoCache;
+    private final ApplicationEventPublisher eventPublisher;
 
     public Carrinho obterCarrinho(Usuario usuario) {
         return carrinhoRepository.findByUsuario(usuario)
                 .orElseGet(() -> criarCarrinho(usuario));
     }
 
-    public Carrinho obterCarrinhoCompleto(Usuario usuario) {
-        return carrinhoRepository.findByUsuarioIdComItens(usuario.getId())
-                .orElseGet(() -> criarCarrinho(usuario));
+    /**
+     * Carrega o agregado do carrinho (usuário, itens e produtos) numa única consulta, direto pelo email
+     * do principal autenticado. As operações abaixo alteram esse agregado em memória e o devolvem como
+     * está no contexto de persistência, sem recarregar o carrinho depois da mudança.
+     */
+    @Transactional
+    public Carrinho obterCarrinhoCompleto(String email) {
+        if (carrinhoMemoriaStore.isHabilitado()) {
+            return montarCarrinho(email, carrinhoMemoriaStore.obter(email));
+        }
+        return carregarDoBanco(email);
+    }
+
+    private Carrinho carregarDoBanco(String email) {
+        return carrinhoRepository.findByUsuarioEmailComItens(email)
+                .orElseGet(() -> criarCarrinho(usuarioService.loadUsuarioByUsername(email)));
     }
 
     @Transactional
-    public Carrinho adicionarItem(Usuario usuario, Long produtoId, Integer quantidade) {
+    public Carrinho adicionarItem(String email, Long produtoId, Integer quantidade) {
         if (quantidade <= 0) {
             throw new ValidationException("Quantidade deve ser maior que zero");
         }
 
-        Carrinho carrinho = obterCarrinho(usuario);
-        Produto produto = produtoService.buscarProdutoAtivoPorId(produtoId)
-                .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado ou indisponível"));
+        if (carrinhoMemoriaStore.isHabilitado()) {
+            Produto produto = produtoService.buscarProdutoAtivoPorId(produtoId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado ou indisponível"));
+            return alterado(email, montarCarrinho(email, carrinhoMemoriaStore.adicionar(
+                    email, produtoId, quantidade, produto.getPreco(), produto.getQuantidade())));
+        }
+
+        Carrinho carrinho = carregarDoBanco(email);
+        ItemCarrinho itemExistente = carrinho.getItens().stream()
+                .filter(item -> item.getProduto().getId().equals(produtoId))
+                .findFirst()
+                .orElse(null);
+
+        // Se o produto já está no carrinho ele veio junto na consulta; senão busca só ele
+        Produto produto;
+        if (itemExistente != null && Boolean.TRUE.equals(itemExistente.getProduto().getAtivo())) {
+            produto = itemExistente.getProduto();
+        } else {
+            produto = produtoService.buscarProdutoAtivoPorId(produtoId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado ou indisponível"));
+        }
 
         if (produto.getQuantidade() < quantidade) {
             throw new ValidationException(
@@ -52,10 +94,6 @@ public class CarrinhoService {
             );
         }
 
-        ItemCarrinho itemExistente = itemCarrinhoRepository
-                .findByCarrinhoIdAndProdutoId(carrinho.getId(), produtoId)
-                .orElse(null);
-
         if (itemExistente != null) {
             int novaQuantidade = itemExistente.getQuantidade() + quantidade;
             if (produto.getQuantidade() < novaQuantidade) {
@@ -66,50 +104,51 @@ public class CarrinhoService {
             itemExistente.setQuantidade(novaQuantidade);
             itemExistente.setPrecoUnitario(produto.getPreco());
             itemExistente.setDataAtualizacao(LocalDateTime.now());
-            itemCarrinhoRepository.save(itemExistente);
         } else {
             ItemCarrinho novoItem = ItemCarrinho.builder()
-                    .carrinho(carrinho)
                     .produto(produto)
                     .quantidade(quantidade)
                     .precoUnitario(produto.getPreco())
                     .build();
+            carrinho.adicionarItem(novoItem);
+            // Persiste já para o item sair com id na resposta
             itemCarrinhoRepository.save(novoItem);
         }
 
-        return obterCarrinhoCompleto(usuario);
+        return alterado(email, carrinho);
     }
 
     @Transactional
-    public Carrinho removerItem(Usuario usuario, Long itemId) {
-        Carrinho carrinho = obterCarrinho(usuario);
-
-        ItemCarrinho item = itemCarrinhoRepository.findById(itemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Item não encontrado"));
-
-        if (!item.getCarrinho().getId().equals(carrinho.getId())) {
-            throw new ValidationException("Item não pertence ao seu carrinho");
+    public Carrinho removerItem(String email, Long itemId) {
+        if (carrinhoMemoriaStore.isHabilitado()) {
+            // No modo em memória o id do item é o id do produto
+            return alterado(email, montarCarrinho(email, carrinhoMemoriaStore.remover(email, itemId)));
         }
 
-        itemCarrinhoRepository.delete(item);
-        return obterCarrinhoCompleto(usuario);
+        Carrinho carrinho = carregarDoBanco(email);
+        ItemCarrinho item = buscarItem(carrinho, itemId);
+
+        // orphanRemoval apaga a linha no flush
+        carrinho.removerItem(item);
+        return alterado(email, carrinho);
     }
 
     @Transactional
-    public Carrinho atualizarQuantidade(Usuario usuario, Long itemId, Integer quantidade) {
+    public Carrinho atualizarQuantidade(String email, Long itemId, Integer quantidade) {
         if (quantidade <= 0) {
-            return removerItem(usuario, itemId);
+            return removerItem(email, itemId);
         }
 
-        Carrinho carrinho = obterCarrinho(usuario);
-
-        ItemCarrinho item = itemCarrinhoRepository.findById(itemId)
-                .orElseThrow(() -> new ResourceNotFoundException("Item não encontrado"));
-
-        if (!item.getCarrinho().getId().equals(carrinho.getId())) {
-            throw new ValidationException("Item não pertence ao seu carrinho");
+        if (carrinhoMemoriaStore.isHabilitado()) {
+            Produto produto = produtoService.buscarProdutoAtivoPorId(itemId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado ou indisponível"));
+            return alterado(email, montarCarrinho(email, carrinhoMemoriaStore.atualizar(
+                    email, itemId, quantidade, produto.getQuantidade())));
         }
 
+        Carrinho carrinho = carregarDoBanco(email);
+        ItemCarrinho item = buscarItem(carrinho, itemId);
+
         if (item.getProduto().getQuantidade() < quantidade) {
             throw new ValidationException(
                     String.format("Estoque insuficiente. Disponível: %d", item.getProduto().getQuantidade())
@@ -118,53 +157,142 @@ public class CarrinhoService {
 
         item.setQuantidade(quantidade);
         item.setDataAtualizacao(LocalDateTime.now());
-        itemCarrinhoRepository.save(item);
-
-        return obterCarrinhoCompleto(usuario);
+        return alterado(email, carrinho);
     }
 
     @Transactional
-    public Carrinho limparCarrinho(Usuario usuario) {
-        Carrinho carrinho = obterCarrinho(usuario);
-        itemCarrinhoRepository.deleteAllByCarrinhoId(carrinho.getId());
-        return obterCarrinhoCompleto(usuario);
+    public Carrinho limparCarrinho(String email) {
+        if (carrinhoMemoriaStore.isHabilitado()) {
+            return alterado(email, montarCarrinho(email, carrinhoMemoriaStore.limpar(email)));
+        }
+
+        Carrinho carrinho = carregarDoBanco(email);
+        carrinho.limpar();
+        return alterado(email, carrinho);
+    }
+
+    // Invalida o contador do badge depois do commit; a próxima leitura recalcula o total
+    private Carrinho alterado(String email, Carrinho carrinho) {
+        eventPublisher.publishEvent(new CarrinhoAlteradoEvent(email));
+        return carrinho;
     }
 
+    // Monta um Carrinho transiente (não gerenciado) a partir da foto da memória, só para a resposta;
+    // os produtos vêm numa única consulta. Itens de produtos que não existem mais saem também da memória,
+    // para o contador e a próxima descarga enxergarem o mesmo carrinho que a resposta
+    private Carrinho montarCarrinho(String email, CarrinhoMemoriaStore.Estado estado) {
+        Map<Long, Produto> produtos = new HashMap<>();
+        List<Long> produtoIds = estado.itens().stream().map(CarrinhoMemoriaStore.Item::produtoId).toList();
+        if (!produtoIds.isEmpty()) {
+            produtoService.buscarPorIds(produtoIds).forEach(produto -> produtos.put(produto.getId(), produto));
+        }
+
+        List<Long> ausentes = produtoIds.stream().filter(id -> !produtos.containsKey(id)).toList();
+        if (!ausentes.isEmpty() && carrinhoMemoriaStore.descartarProdutos(email, ausentes)) {
+            eventPublisher.publishEvent(new CarrinhoAlteradoEvent(email));
+        }
+
+        Carrinho carrinho = Carrinho.builder()
+                .id(estado.carrinhoId())
+                .usuario(Usuario.builder().id(estado.usuarioId()).nome(estado.usuarioNome()).email(email).build())
+                .itens(new ArrayList<>())
+                .build();
+
+        for (CarrinhoMemoriaStore.Item item : estado.itens()) {
+            Produto produto = produtos.get(item.produtoId());
+            if (produto == null) {
+                continue;
+            }
+            carrinho.getItens().add(ItemCarrinho.builder()
+                    .id(item.produtoId())
+                    .carrinho(carrinho)
+                    .produto(produto)
+                    .quantidade(item.quantidade())
+                    .precoUnitario(item.precoUnitario())
+                    .build());
+        }
+        return carrinho;
+    }
+
+    // Procura o item no carrinho já carregado: se não está ali, não é do usuário
+    private ItemCarrinho buscarItem(Carrinho carrinho, Long itemId) {
+        for (ItemCarrinho item : carrinho.getItens()) {
+            if (item.getId().equals(itemId)) {
+                return item;
+            }
+        }
+
+        if (itemCarrinhoRepository.existsById(itemId)) {
+            throw new ValidationException("Item não pertence ao seu carrinho");
+        }
+        throw new ResourceNotFoundException("Item não encontrado");
+    }
+
+    /**
+     * Checkout em número constante de idas ao banco: um SELECT do carrinho com itens e produtos,
+     * um UPDATE com a baixa de todos os produtos (travados em ordem de id) e os DELETEs dos itens,
+     * que o Hibernate agrupa em lote. Tudo na mesma transação: se faltar estoque de qualquer produto,
+     * nada é baixado e o carrinho fica como estava.
+     */
     @Transactional
-    public Carrinho finalizarCompra(Usuario usuario) {
-        Carrinho carrinho = obterCarrinhoCompleto(usuario);
+    public Carrinho finalizarCompra(String email) {
+        Map<Long, Long> versoesCompradas = Map.of();
+        if (carrinhoMemoriaStore.isHabilitado()) {
+            // Leva o carrinho da memória para o banco nesta mesma transação antes da baixa
+            versoesCompradas = carrinhoMemoriaStore.sincronizar(email).versoesItens();
+        }
+
+        Carrinho carrinho = carregarDoBanco(email);
 
         if (carrinho.getItens().isEmpty()) {
             throw new ValidationException("Carrinho vazio");
         }
 
-        carrinho.getItens().forEach(item -> {
-            Produto produto = item.getProduto();
-            if (produto.getQuantidade() < item.getQuantidade()) {
-                throw new ValidationException(
-                        String.format("Produto '%s' sem estoque suficiente", produto.getNome())
-                );
-            }
+        Map<Long, Long> quantidadesPorProduto = new HashMap<>();
+        for (ItemCarrinho item : carrinho.getItens()) {
+            quantidadesPorProduto.merge(item.getProduto().getId(), item.getQuantidade().longValue(), Long::sum);
+        }
 
-            produtoService.atualizarEstoque(produto.getId(), item.getQuantidade().longValue());
-        });
+        Set<Long> semEstoque = produtoService.baixarEstoqueEmLote(quantidadesPorProduto);
+        if (!semEstoque.isEmpty()) {
+            // A exceção desfaz as baixas que já aconteceram no UPDATE
+            String produto = carrinho.getItens().stream()
+                    .map(ItemCarrinho::getProduto)
+                    .filter(p -> semEstoque.contains(p.getId()))
+                    .map(Produto::getNome)
+                    .findFirst()
+                    .orElse("");
+            throw new ValidationException(String.format("Produto '%s' sem estoque suficiente", produto));
+        }
+
+        // orphanRemoval remove os itens no flush, em lote
+        carrinho.limpar();
 
-        log.info("Compra finalizada para usuário: {}", usuario.getEmail());
+        eventPublisher.publishEvent(new CompraFinalizadaEvent(email, versoesCompradas));
+        log.info("Compra finalizada para usuário: {}", email);
 
-        return limparCarrinho(usuario);
+        return carrinho;
     }
 
     private Carrinho criarCarrinho(Usuario usuario) {
+        // O @SuperBuilder não aplica o "= new ArrayList<>()" do campo
         Carrinho carrinho = Carrinho.builder()
                 .usuario(usuario)
+                .itens(new ArrayList<>())
                 .build();
         return carrinhoRepository.save(carrinho);
     }
 
-    @Transactional
-    public Integer contarItensNoCarrinho(Usuario usuario) {
-        Carrinho carrinho = obterCarrinho(usuario);
-        return itemCarrinhoRepository.countTotalItensNoCarrinho(carrinho.getId());
+    // Servido pelo contador em cache; só a primeira leitura depois de cada alteração calcula o total
+    public int contarItensNoCarrinho(String email) {
+        return contadorCarrinhoCache.obter(email, () -> {
+            if (carrinhoMemoriaStore.isHabilitado()) {
+                return carrinhoMemoriaStore.obter(email).itens().stream()
+                        .mapToInt(CarrinhoMemoriaStore.Item::quantidade)
+                        .sum();
+            }
+            return itemCarrinhoRepository.countTotalItensPorEmail(email);
+        });
     }
 }
 
@@ -0,0 +1,82 @@
+package io.github.brunoeugeniodev.marketplace.service;
+
+import io.github.brunoeugeniodev.marketplace.event.CarrinhoAlteradoEvent;
+import io.github.brunoeugeniodev.marketplace.event.CompraFinalizadaEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Contador de itens do carrinho por usuário, usado pelo badge do cabeçalho (chamado a cada página).
+ * Entre uma alteração e outra a leitura não faz consulta nenhuma; cada alteração confirmada invalida
+ * a entrada e a leitura seguinte recalcula o total.
+ * <p>
+ * Os eventos não gravam o total que a operação calculou: depois do commit, duas alterações concorrentes
+ * podem chegar fora de ordem e o total mais velho ficaria por último. A invalidação deixa uma marca
+ * própria no lugar do valor, e uma leitura só guarda o que calculou se a entrada ainda for a mesma que
+ * ela viu ao começar; se uma alteração foi confirmada no meio do cálculo, o valor é usado só nessa resposta.
+ */
+@Component
+public class ContadorCarrinhoCache {
+
+    private final Map<String, Entrada> contadores = new ConcurrentHashMap<>();
+    private final AtomicLong invalidacoes = new AtomicLong();
+
+    @Value("${carrinho.contador.max-entries:50000}")
+    private int maxEntradas;
+
+    public int obter(String email, Supplier<Integer> calcular) {
+        Entrada lida = contadores.get(email);
+        if (lida != null && lida.valor() != null) {
+            return lida.valor();
+        }
+
+        Integer valor = calcular.get();
+        int calculado = valor != null ? valor : 0;
+        liberarEspaco(email);
+        Entrada nova = new Entrada(calculado, 0);
+        if (lida == null) {
+            contadores.putIfAbsent(email, nova);
+        } else {
+            contadores.replace(email, lida, nova);
+        }
+        return calculado;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCarrinhoAlterado(CarrinhoAlteradoEvent evento) {
+        invalidar(evento.getEmail());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCompraFinalizada(CompraFinalizadaEvent evento) {
+        invalidar(evento.getEmail());
+    }
+
+    private void invalidar(String email) {
+        liberarEspaco(email);
+        contadores.put(email, new Entrada(null, invalidacoes.incrementAndGet()));
+    }
+
+    private void liberarEspaco(String email) {
+        if (contadores.size() >= maxEntradas && !contadores.containsKey(email)) {
+            // Cheio: descarta entradas quaisquer; elas são recalculadas na próxima leitura
+            Iterator<String> chaves = contadores.keySet().iterator();
+            while (contadores.size() >= maxEntradas && chaves.hasNext()) {
+                chaves.next();
+                chaves.remove();
+            }
+        }
+    }
+
+    // valor nulo marca uma entrada invalidada; o número distingue uma invalidação da outra
+    private record Entrada(Integer valor, long invalidacao) {
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.brunoeugeniodev.marketplace.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.brunoeugeniodev.marketplace.dto.ProdutoDTO;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.repository.ProdutoRepository;
+import io.github.brunoeugeniodev.marketplace.util.MapperUtil;
+import jakarta.persistence.EntityManager;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Exportação do catálogo inteiro para parceiros e comparadores de preço. Os produtos vêm de um cursor
+ * do banco (fetch size no repositório) e cada linha é escrita e desanexada antes da próxima, então a
+ * memória usada não depende do tamanho do catálogo.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ExportacaoCatalogoService {
+
+    private static final String CABECALHO_CSV =
+            "id,nome,categoria,marca,modelo,preco,quantidade,disponivel,lojaId,lojaNome,fotoUrl,dataAtualizacao";
+
+    // A cada quantas linhas o buffer é enviado ao cliente
+    private static final int LINHAS_POR_FLUSH = 500;
+
+    private final ProdutoRepository produtoRepository;
+    private final MapperUtil mapperUtil;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+
+    public enum Formato {
+        NDJSON, CSV
+    }
+
+    // Chamado pelo corpo da resposta em streaming, fora da thread da requisição: a transação aberta
+    // aqui é a que mantém o cursor do Postgres aberto enquanto as linhas são escritas
+    @Transactional(readOnly = true)
+    public long exportar(Formato formato, OutputStream saida) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(saida, StandardCharsets.UTF_8));
+        if (formato == Formato.CSV) {
+            writer.write(CABECALHO_CSV);
+            writer.write('\n');
+        }
+
+        long linhas = 0;
+        try (Stream<Produto> produtos = produtoRepository.streamCatalogo()) {
+            Iterator<Produto> iterator = produtos.iterator();
+            while (iterator.hasNext()) {
+                Produto produto = iterator.next();
+                ProdutoDTO dto = mapperUtil.toProdutoDTO(produto);
+                // A loja fica no contexto (uma por loja, não por produto); o produto sai logo após o uso
+                entityManager.detach(produto);
+
+                if (formato == Formato.CSV) {
+                    escreverCsv(writer, dto);
+                } else {
+                    writer.write(objectMapper.writeValueAsString(dto));
+                }
+                writer.write('\n');
+
+                if (++linhas % LINHAS_POR_FLUSH == 0) {
+                    writer.flush();
+                }
+            }
+        }
+
+        writer.flush();
+        log.info("Catálogo exportado em {}: {} produtos", formato, linhas);
+        return linhas;
+    }
+
+    private void escreverCsv(Writer writer, ProdutoDTO dto) throws IOException {
+        writer.write(String.join(",",
+                valor(dto.getId()),
+                campo(dto.getNome()),
+                campo(dto.getCategoria()),
+                campo(dto.getMarca()),
+                campo(dto.getModelo()),
+                dto.getPreco() != null ? dto.getPreco().toPlainString() : "",
+                valor(dto.getQuantidade()),
+                valor(dto.getDisponivel()),
+                valor(dto.getLojaId()),
+                campo(dto.getLojaNome()),
+                campo(dto.getFotoUrl()),
+                valor(dto.getDataAtualizacao())));
+    }
+
+    private static String valor(Object valor) {
+        return valor != null ? valor.toString() : "";
+    }
+
+    // RFC 4180: campos com vírgula, aspas ou quebra de linha vão entre aspas, com aspas duplicadas
+    private static String campo(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0
+                && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            return texto;
+        }
+        return '"' + texto.replace("\"", "\"\"") + '"';
+    }
+}
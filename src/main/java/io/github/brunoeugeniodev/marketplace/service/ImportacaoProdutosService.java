@@ -0,0 +1,272 @@
+package io.github.brunoeugeniodev.marketplace.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.brunoeugeniodev.marketplace.dto.ImportacaoProdutosDTO;
+import io.github.brunoeugeniodev.marketplace.dto.ProdutoCreateDTO;
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.util.MapperUtil;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.ValidationException;
+import jakarta.validation.Validator;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Importação em massa de produtos de uma loja a partir de CSV (com cabeçalho) ou NDJSON.
+ * O arquivo é lido linha a linha direto do corpo da requisição; cada linha é validada com as mesmas
+ * regras do cadastro unitário (as anotações do ProdutoCreateDTO e o validarProduto), e as válidas são
+ * gravadas em lotes, cada lote na sua transação. Linhas inválidas não interrompem a importação: entram
+ * no relatório devolvido no fim. Se um lote falhar no banco, as linhas dele são gravadas de novo uma a uma,
+ * para só as que realmente falham irem para o relatório.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class ImportacaoProdutosService {
+
+    private static final int MAXIMO_ERROS_REPORTADOS = 1000;
+
+    private final ProdutoService produtoService;
+    private final MapperUtil mapperUtil;
+    private final ObjectMapper objectMapper;
+    private final Validator validator;
+
+    @Value("${importacao.produtos.lote:500}")
+    private int tamanhoLote;
+
+    public enum Formato {
+        CSV, NDJSON
+    }
+
+    public ImportacaoProdutosDTO importar(Loja loja, Usuario usuario, Formato formato, InputStream entrada)
+            throws IOException {
+        long inicio = System.currentTimeMillis();
+        Importacao importacao = new Importacao(loja, usuario);
+
+        BufferedReader reader = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8));
+        Map<String, Integer> colunas = null;
+        long numeroLinha = 0;
+        String linha;
+        while ((linha = reader.readLine()) != null) {
+            numeroLinha++;
+            if (linha.isBlank()) {
+                continue;
+            }
+
+            if (formato == Formato.CSV && colunas == null) {
+                colunas = lerCabecalho(linha);
+                continue;
+            }
+
+            importacao.linhasLidas++;
+            try {
+                ProdutoCreateDTO dto = formato == Formato.CSV ? lerCsv(linha, colunas) : lerJson(linha);
+                validar(dto);
+                produtoService.validarProduto(mapperUtil.toProdutoEntity(dto));
+                importacao.adicionar(numeroLinha, dto);
+            } catch (ValidationException | IllegalArgumentException e) {
+                importacao.erro(numeroLinha, e.getMessage());
+            }
+        }
+        importacao.gravarLote();
+
+        ImportacaoProdutosDTO resultado = ImportacaoProdutosDTO.builder()
+                .linhasLidas(importacao.linhasLidas)
+                .importados(importacao.importados)
+                .comErro(importacao.comErro)
+                .duracaoMs(System.currentTimeMillis() - inicio)
+                .erros(importacao.erros)
+                .errosOmitidos(importacao.comErro - importacao.erros.size())
+                .build();
+        log.info("Importação da loja {} concluída: {} linhas, {} importados, {} com erro em {} ms",
+                loja.getId(), resultado.getLinhasLidas(), resultado.getImportados(),
+                resultado.getComErro(), resultado.getDuracaoMs());
+        return resultado;
+    }
+
+    // Estado de uma importação: o lote pendente e os contadores do relatório
+    private class Importacao {
+
+        private final Loja loja;
+        private final Usuario usuario;
+        private final List<ProdutoCreateDTO> lote = new ArrayList<>();
+        private final List<Long> linhasDoLote = new ArrayList<>();
+        private final List<ImportacaoProdutosDTO.ErroLinha> erros = new ArrayList<>();
+        private long linhasLidas;
+        private long importados;
+        private long comErro;
+
+        Importacao(Loja loja, Usuario usuario) {
+            this.loja = loja;
+            this.usuario = usuario;
+        }
+
+        void adicionar(long numeroLinha, ProdutoCreateDTO dto) {
+            lote.add(dto);
+            linhasDoLote.add(numeroLinha);
+            if (lote.size() >= tamanhoLote) {
+                gravarLote();
+            }
+        }
+
+        void gravarLote() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            try {
+                importados += gravar(lote);
+                log.debug("Importação da loja {}: {} linhas lidas, {} importados", loja.getId(), linhasLidas, importados);
+            } catch (ValidationException e) {
+                // Permissão: nenhum lote vai passar, então não adianta continuar lendo o arquivo
+                throw e;
+            } catch (RuntimeException e) {
+                // O lote inteiro foi desfeito; as linhas dele são tentadas uma a uma
+                log.warn("Falha ao gravar lote da importação da loja {}, gravando linha a linha: {}",
+                        loja.getId(), e.getMessage());
+                for (int i = 0; i < lote.size(); i++) {
+                    try {
+                        importados += gravar(List.of(lote.get(i)));
+                    } catch (ValidationException erroPermissao) {
+                        throw erroPermissao;
+                    } catch (RuntimeException erroLinha) {
+                        erro(linhasDoLote.get(i), "Falha ao gravar: " + erroLinha.getMessage());
+                    }
+                }
+            }
+            lote.clear();
+            linhasDoLote.clear();
+        }
+
+        // Entidades novas a cada tentativa: as de uma transação desfeita ficam com id de sequência atribuído
+        private int gravar(List<ProdutoCreateDTO> dtos) {
+            List<Produto> produtos = new ArrayList<>(dtos.size());
+            dtos.forEach(dto -> produtos.add(mapperUtil.toProdutoEntity(dto)));
+            return produtoService.criarProdutosEmLote(produtos, loja, usuario);
+        }
+
+        void erro(long numeroLinha, String mensagem) {
+            comErro++;
+            if (erros.size() < MAXIMO_ERROS_REPORTADOS) {
+                erros.add(new ImportacaoProdutosDTO.ErroLinha(numeroLinha, mensagem));
+            }
+        }
+    }
+
+    // As mesmas anotações que o @Valid aplica no cadastro unitário, com as mensagens da linha juntas
+    private void validar(ProdutoCreateDTO dto) {
+        Set<ConstraintViolation<ProdutoCreateDTO>> violacoes = validator.validate(dto);
+        if (!violacoes.isEmpty()) {
+            throw new ValidationException(violacoes.stream()
+                    .sorted(Comparator.comparing(violacao -> violacao.getPropertyPath().toString()))
+                    .map(violacao -> violacao.getPropertyPath() + ": " + violacao.getMessage())
+                    .collect(Collectors.joining("; ")));
+        }
+    }
+
+    private ProdutoCreateDTO lerJson(String linha) {
+        try {
+            return objectMapper.readValue(linha, ProdutoCreateDTO.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalArgumentException("JSON inválido: " + e.getOriginalMessage());
+        }
+    }
+
+    private static Map<String, Integer> lerCabecalho(String linha) {
+        // Planilhas exportadas no Windows costumam começar com BOM
+        List<String> nomes = separarCsv(linha.startsWith("\uFEFF") ? linha.substring(1) : linha);
+        Map<String, Integer> colunas = new HashMap<>();
+        for (int i = 0; i < nomes.size(); i++) {
+            colunas.put(nomes.get(i).trim().toLowerCase(Locale.ROOT), i);
+        }
+        if (!colunas.containsKey("nome") || !colunas.containsKey("preco") || !colunas.containsKey("quantidade")) {
+            throw new ValidationException("Cabeçalho do CSV precisa ter as colunas nome, preco e quantidade");
+        }
+        return colunas;
+    }
+
+    private static ProdutoCreateDTO lerCsv(String linha, Map<String, Integer> colunas) {
+        List<String> campos = separarCsv(linha);
+        ProdutoCreateDTO dto = new ProdutoCreateDTO();
+        dto.setNome(campo(campos, colunas, "nome"));
+        dto.setDescricao(campo(campos, colunas, "descricao"));
+        dto.setFotoUrl(campo(campos, colunas, "fotourl"));
+        dto.setCategoria(campo(campos, colunas, "categoria"));
+        dto.setMarca(campo(campos, colunas, "marca"));
+        dto.setModelo(campo(campos, colunas, "modelo"));
+
+        String preco = campo(campos, colunas, "preco");
+        String quantidade = campo(campos, colunas, "quantidade");
+        String destaque = campo(campos, colunas, "destaque");
+        try {
+            dto.setPreco(preco != null ? new BigDecimal(preco) : null);
+            dto.setQuantidade(quantidade != null ? Long.parseLong(quantidade) : null);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Preço ou quantidade em formato inválido");
+        }
+        dto.setDestaque(Boolean.parseBoolean(destaque));
+        return dto;
+    }
+
+    // Campo ausente ou vazio vira null
+    private static String campo(List<String> campos, Map<String, Integer> colunas, String nome) {
+        Integer indice = colunas.get(nome);
+        if (indice == null || indice >= campos.size()) {
+            return null;
+        }
+        String valor = campos.get(indice).trim();
+        return valor.isEmpty() ? null : valor;
+    }
+
+    // RFC 4180 dentro de uma linha: campos entre aspas podem ter vírgulas e aspas duplicadas ("").
+    // Quebras de linha dentro de um campo não são suportadas (o arquivo é lido linha a linha).
+    private static List<String> separarCsv(String linha) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder atual = new StringBuilder();
+        boolean entreAspas = false;
+        for (int i = 0; i < linha.length(); i++) {
+            char c = linha.charAt(i);
+            if (entreAspas) {
+                if (c == '"' && i + 1 < linha.length() && linha.charAt(i + 1) == '"') {
+                    atual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreAspas = false;
+                } else {
+                    atual.append(c);
+                }
+            } else if (c == '"') {
+                entreAspas = true;
+            } else if (c == ',') {
+                campos.add(atual.toString());
+                atual.setLength(0);
+            } else {
+                atual.append(c);
+            }
+        }
+        if (entreAspas) {
+            throw new IllegalArgumentException("Aspas não fechadas na linha");
+        }
+        campos.add(atual.toString());
+        return campos;
+    }
+}
@@ -1,5 +1,8 @@
 package io.github.brunoeugeniodev.marketplace.service;
 
+import io.github.brunoeugeniodev.marketplace.dto.LojaListagemDTO;
+import io.github.brunoeugeniodev.marketplace.dto.PaginaCursorDTO;
+import io.github.brunoeugeniodev.marketplace.event.LojaAlteradaEvent;
 import io.github.brunoeugeniodev.marketplace.exception.ResourceNotFoundException;
 import io.github.brunoeugeniodev.marketplace.models.Loja;
 import io.github.brunoeugeniodev.marketplace.models.Usuario;
@@ -7,7 +10,10 @@ import io.github.brunoeugeniodev.marketplace.repository.LojaRepository;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import io.github.brunoeugeniodev.marketplace.util.CursorUtil;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -22,6 +28,7 @@ public class LojaService {
 
     private final LojaRepository lojaRepository;
     private final ProdutoService produtoService;
+    private final ApplicationEventPublisher eventPublisher;
 
     @Transactional
     public Loja criarLoja(Loja loja, Usuario usuario) {
@@ -32,7 +39,9 @@ public class LojaService {
         loja.setUsuario(usuario);
         loja.setAtivo(true);
 
-        return lojaRepository.save(loja);
+        Loja lojaSalva = lojaRepository.save(loja);
+        eventPublisher.publishEvent(LojaAlteradaEvent.de(lojaSalva));
+        return lojaSalva;
     }
 
     @Transactional
@@ -66,7 +75,9 @@ public class LojaService {
                         loja.setEndereco(lojaAtualizada.getEndereco());
                     }
 
-                    return lojaRepository.save(loja);
+                    Loja lojaSalva = lojaRepository.save(loja);
+                    eventPublisher.publishEvent(LojaAlteradaEvent.de(lojaSalva));
+                    return lojaSalva;
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Loja não encontrada"));
     }
@@ -86,35 +97,69 @@ public class LojaService {
                 .orElseThrow(() -> new ResourceNotFoundException("Loja não encontrada"));
     }
 
+    @Transactional(readOnly = true)
     public List<Loja> listarLojasAtivas() {
         return lojaRepository.findByAtivoTrue();
     }
 
+    @Transactional(readOnly = true)
     public Page<Loja> listarLojasRecomendadas(Pageable pageable) {
         return lojaRepository.findLojasRecomendadas(pageable);
     }
 
+    // Versões das listagens sem N+1: proprietário e contagem de produtos numa só consulta
+    @Transactional(readOnly = true)
+    public List<LojaListagemDTO> listarResumoLojasAtivas() {
+        return lojaRepository.listarAtivas();
+    }
+
+    @Transactional(readOnly = true)
+    public List<LojaListagemDTO> listarResumoLojasRecomendadas(int limite) {
+        return lojaRepository.listarRecomendadas(PageRequest.of(0, limite));
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Loja> buscarPorId(Long id) {
         return lojaRepository.findById(id);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Loja> buscarPorIdAtiva(Long id) {
         return lojaRepository.findById(id)
                 .filter(Loja::getAtivo);
     }
 
-    public List<Loja> buscarPorNome(String nome) {
-        return lojaRepository.findByNomeContainingIgnoreCase(nome);
+    @Transactional(readOnly = true)
+    public List<LojaListagemDTO> buscarPorNome(String nome) {
+        return lojaRepository.listarPorNome(nome);
+    }
+
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<LojaListagemDTO> buscarPorTermo(String termo, String cursor, int limite) {
+        long aposId = CursorUtil.decodificar(cursor);
+        List<LojaListagemDTO> lojas = lojaRepository.listarPorTermo(termo, aposId, PageRequest.of(0, limite + 1));
+        Long total = cursor == null ? lojaRepository.contarPorTermo(termo) : null;
+        return PaginaCursorDTO.deConsulta(lojas, limite, LojaListagemDTO::getId, total);
+    }
+
+    @Transactional(readOnly = true)
+    public List<LojaListagemDTO> listarLojasDoUsuario(Usuario usuario) {
+        return lojaRepository.listarDoUsuario(usuario.getId());
     }
 
-    public List<Loja> buscarPorTermo(String termo) {
-        return lojaRepository.buscarPorTermo(termo);
+    // Loja do vendedor só com os campos dela: para as escritas em /api/minha-loja
+    @Transactional(readOnly = true)
+    public Optional<Loja> buscarLojaDoUsuario(Usuario usuario) {
+        return lojaRepository.buscarLojaDoUsuario(usuario.getId());
     }
 
-    public List<Loja> listarLojasDoUsuario(Usuario usuario) {
-        return lojaRepository.findByUsuarioId(usuario.getId());
+    // A mesma loja com o proprietário, para montar o LojaDTO
+    @Transactional(readOnly = true)
+    public Optional<Loja> buscarLojaDoUsuarioComDetalhe(Usuario usuario) {
+        return lojaRepository.buscarLojaDoUsuarioComDetalhe(usuario.getId());
     }
 
+    @Transactional(readOnly = true)
     public List<Loja> listarLojasPorUsuarioEmail(String email) {
         return lojaRepository.findByUsuarioEmail(email);
     }
@@ -127,7 +172,9 @@ public class LojaService {
                         throw new ValidationException("Você não tem permissão para desativar esta loja");
                     }
                     loja.setAtivo(false);
-                    return lojaRepository.save(loja);
+                    Loja lojaSalva = lojaRepository.save(loja);
+                    eventPublisher.publishEvent(LojaAlteradaEvent.de(lojaSalva));
+                    return lojaSalva;
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Loja não encontrada"));
     }
@@ -142,18 +189,26 @@ public class LojaService {
             throw new ValidationException("Você não tem permissão para deletar esta loja");
         }
 
-        // Verifica se loja tem produtos
-        if (!loja.getProdutos().isEmpty()) {
+        // Verifica se loja tem produtos (COUNT, sem carregar a coleção)
+        if (produtoService.contarProdutosPorLoja(id) > 0) {
             throw new ValidationException("Não é possível deletar uma loja com produtos cadastrados");
         }
 
         lojaRepository.delete(loja);
+        eventPublisher.publishEvent(LojaAlteradaEvent.removida(id));
     }
 
+    @Transactional(readOnly = true)
     public Long contarProdutosAtivosPorLoja(Long lojaId) {
         return produtoService.contarProdutosAtivosPorLoja(lojaId);
     }
 
+    // Quantidade de produtos do LojaDTO, sem inicializar loja.getProdutos()
+    @Transactional(readOnly = true)
+    public long contarProdutos(Long lojaId) {
+        return produtoService.contarProdutosPorLoja(lojaId);
+    }
+
     // Método auxiliar para validação
     private void validarLoja(Loja loja) {
         if (loja.getNome() == null || loja.getNome().trim().isEmpty()) {
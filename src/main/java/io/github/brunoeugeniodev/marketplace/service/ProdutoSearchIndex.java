@@ -0,0 +1,244 @@
+package io.github.brunoeugeniodev.marketplace.service;
+
+import io.github.brunoeugeniodev.marketplace.event.LojaAlteradaEvent;
+import io.github.brunoeugeniodev.marketplace.event.ProdutoAlteradoEvent;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.repository.LojaRepository;
+import io.github.brunoeugeniodev.marketplace.repository.ProdutoRepository;
+import io.github.brunoeugeniodev.marketplace.util.TextoBuscaUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Índice invertido em memória dos produtos ativos de lojas ativas, usado pela busca full-text.
+ * Os termos são normalizados sem acento e reduzidos ao radical (ver {@link TextoBuscaUtil}),
+ * e cada produto recebe um peso por campo: nome pesa mais que marca/categoria, que pesam mais que descrição.
+ * O índice é carregado na subida da aplicação e mantido em sincronia pelos eventos do ProdutoService
+ * e do LojaService: desativar a loja tira os produtos dela do índice, reativar traz de volta os ativos.
+ */
+@Component
+@Slf4j
+public class ProdutoSearchIndex {
+
+    private static final float PESO_NOME = 3.0f;
+    private static final float PESO_MARCA = 2.0f;
+    private static final float PESO_CATEGORIA = 2.0f;
+    private static final float PESO_DESCRICAO = 1.0f;
+
+    // Termos que casam só pelo prefixo valem menos que o termo exato
+    private static final float FATOR_PREFIXO = 0.5f;
+
+    private final ProdutoRepository produtoRepository;
+    private final LojaRepository lojaRepository;
+
+    // Os eventos chegam depois do commit: a leitura dos produtos de uma loja reativada precisa de transação própria
+    private final TransactionTemplate leitura;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private TreeMap<String, Map<Long, Float>> postings = new TreeMap<>();
+    private Map<Long, Set<String>> termosPorProduto = new HashMap<>();
+    private Map<Long, Long> lojaPorProduto = new HashMap<>();
+    private Set<Long> lojasInativas = new HashSet<>();
+
+    public ProdutoSearchIndex(ProdutoRepository produtoRepository,
+                              LojaRepository lojaRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.produtoRepository = produtoRepository;
+        this.lojaRepository = lojaRepository;
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.leitura.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        TreeMap<String, Map<Long, Float>> novosPostings = new TreeMap<>();
+        Map<Long, Set<String>> novosTermos = new HashMap<>();
+        Map<Long, Long> novasLojas = new HashMap<>();
+
+        List<Produto> produtos = produtoRepository.findAtivosDeLojasAtivas();
+        for (Produto produto : produtos) {
+            adicionar(ProdutoAlteradoEvent.de(produto, true), novosPostings, novosTermos, novasLojas);
+        }
+        Set<Long> inativas = new HashSet<>(lojaRepository.findIdsInativas());
+
+        lock.writeLock().lock();
+        try {
+            postings = novosPostings;
+            termosPorProduto = novosTermos;
+            lojaPorProduto = novasLojas;
+            lojasInativas = inativas;
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Índice de busca de produtos carregado: {} produtos, {} termos",
+                novosTermos.size(), novosPostings.size());
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProdutoAlterado(ProdutoAlteradoEvent evento) {
+        lock.writeLock().lock();
+        try {
+            remover(evento.getProdutoId());
+            if (evento.isPesquisavel()) {
+                adicionar(evento, postings, termosPorProduto, lojaPorProduto);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLojaAlterada(LojaAlteradaEvent evento) {
+        Long lojaId = evento.getLojaId();
+        lock.writeLock().lock();
+        try {
+            if (!evento.isAtivo()) {
+                lojasInativas.add(lojaId);
+                List<Long> produtosDaLoja = new ArrayList<>();
+                lojaPorProduto.forEach((produtoId, loja) -> {
+                    if (lojaId.equals(loja)) {
+                        produtosDaLoja.add(produtoId);
+                    }
+                });
+                produtosDaLoja.forEach(this::remover);
+            } else if (lojasInativas.remove(lojaId)) {
+                // Só na reativação: editar uma loja ativa não recarrega os produtos dela. A consulta roda
+                // com o write lock para uma desativação concorrente não ser sobrescrita por esta carga
+                List<Produto> produtos = leitura.execute(status -> produtoRepository.findByLojaIdAndAtivoTrue(lojaId));
+                for (Produto produto : produtos) {
+                    remover(produto.getId());
+                    adicionar(ProdutoAlteradoEvent.de(produto, true), postings, termosPorProduto, lojaPorProduto);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Ordem dos resultados: pontuação decrescente, id decrescente como desempate
+    public static final Comparator<Resultado> ORDEM = Comparator.comparingDouble(Resultado::pontuacao).reversed()
+            .thenComparing(Comparator.comparingLong(Resultado::produtoId).reversed());
+
+    /**
+     * Retorna os ids dos produtos que contêm todos os termos da consulta (exatos ou por prefixo),
+     * ordenados por relevância.
+     */
+    public List<Long> buscar(String consulta) {
+        return buscarComPontuacao(consulta).stream().map(Resultado::produtoId).toList();
+    }
+
+    // Como buscar, com a pontuação de cada produto: é ela que a paginação por keyset usa como chave
+    public List<Resultado> buscarComPontuacao(String consulta) {
+        List<String> termos = TextoBuscaUtil.tokenizar(consulta);
+        if (termos.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            int totalProdutos = Math.max(1, termosPorProduto.size());
+            Map<Long, Float> pontuacao = null;
+
+            for (String termo : termos) {
+                Map<Long, Float> pontuacaoTermo = pontuarTermo(termo, totalProdutos);
+                if (pontuacao == null) {
+                    pontuacao = pontuacaoTermo;
+                } else {
+                    // Semântica AND: mantém só produtos que casaram com todos os termos
+                    pontuacao.keySet().retainAll(pontuacaoTermo.keySet());
+                    pontuacao.replaceAll((id, valor) -> valor + pontuacaoTermo.get(id));
+                }
+                if (pontuacao.isEmpty()) {
+                    return List.of();
+                }
+            }
+
+            List<Resultado> resultado = new ArrayList<>(pontuacao.size());
+            pontuacao.forEach((id, valor) -> resultado.add(new Resultado(id, valor)));
+            resultado.sort(ORDEM);
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // Deve ser chamado com o read lock adquirido
+    private Map<Long, Float> pontuarTermo(String termo, int totalProdutos) {
+        Map<Long, Float> pontuacao = new HashMap<>();
+        SortedMap<String, Map<Long, Float>> candidatos = postings.subMap(termo, termo + Character.MAX_VALUE);
+
+        for (Map.Entry<String, Map<Long, Float>> entrada : candidatos.entrySet()) {
+            Map<Long, Float> produtos = entrada.getValue();
+            float idf = (float) Math.log(1.0 + (double) totalProdutos / produtos.size());
+            float fator = entrada.getKey().equals(termo) ? 1.0f : FATOR_PREFIXO;
+
+            for (Map.Entry<Long, Float> produto : produtos.entrySet()) {
+                pontuacao.merge(produto.getKey(), produto.getValue() * idf * fator, Math::max);
+            }
+        }
+        return pontuacao;
+    }
+
+    // Deve ser chamado com o write lock adquirido
+    private void remover(Long produtoId) {
+        lojaPorProduto.remove(produtoId);
+        Set<String> termos = termosPorProduto.remove(produtoId);
+        if (termos == null) {
+            return;
+        }
+        for (String termo : termos) {
+            Map<Long, Float> produtos = postings.get(termo);
+            if (produtos != null) {
+                produtos.remove(produtoId);
+                if (produtos.isEmpty()) {
+                    postings.remove(termo);
+                }
+            }
+        }
+    }
+
+    private static void adicionar(ProdutoAlteradoEvent produto,
+                                  TreeMap<String, Map<Long, Float>> postings,
+                                  Map<Long, Set<String>> termosPorProduto,
+                                  Map<Long, Long> lojaPorProduto) {
+        Map<String, Float> pesos = new HashMap<>();
+        acumular(pesos, produto.getNome(), PESO_NOME);
+        acumular(pesos, produto.getMarca(), PESO_MARCA);
+        acumular(pesos, produto.getCategoria(), PESO_CATEGORIA);
+        acumular(pesos, produto.getDescricao(), PESO_DESCRICAO);
+
+        if (pesos.isEmpty()) {
+            return;
+        }
+
+        for (Map.Entry<String, Float> entrada : pesos.entrySet()) {
+            postings.computeIfAbsent(entrada.getKey(), t -> new HashMap<>())
+                    .put(produto.getProdutoId(), entrada.getValue());
+        }
+        termosPorProduto.put(produto.getProdutoId(), new HashSet<>(pesos.keySet()));
+        lojaPorProduto.put(produto.getProdutoId(), produto.getLojaId());
+    }
+
+    private static void acumular(Map<String, Float> pesos, String texto, float peso) {
+        for (String termo : TextoBuscaUtil.tokenizar(texto)) {
+            pesos.merge(termo, peso, Float::sum);
+        }
+    }
+
+    public record Resultado(long produtoId, float pontuacao) {
+    }
+}
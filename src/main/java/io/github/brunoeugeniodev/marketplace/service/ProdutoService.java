@@ -1,21 +1,45 @@
 package io.github.brunoeugeniodev.marketplace.service;
 
+import io.github.brunoeugeniodev.marketplace.dto.PaginaCursorDTO;
+import io.github.brunoeugeniodev.marketplace.event.PrecoEstoqueAlteradoEvent;
+import io.github.brunoeugeniodev.marketplace.event.ProdutoAlteradoEvent;
 import io.github.brunoeugeniodev.marketplace.exception.ResourceNotFoundException;
 import io.github.brunoeugeniodev.marketplace.models.Loja;
 import io.github.brunoeugeniodev.marketplace.models.Produto;
 import io.github.brunoeugeniodev.marketplace.models.Usuario;
 import io.github.brunoeugeniodev.marketplace.repository.ProdutoRepository;
+import io.github.brunoeugeniodev.marketplace.util.CursorUtil;
+import jakarta.persistence.Cache;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.scheduling.TaskScheduler;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
@@ -23,6 +47,25 @@ import java.util.Optional;
 public class ProdutoService {
 
     private final ProdutoRepository produtoRepository;
+    private final ProdutoSearchIndex produtoSearchIndex;
+    private final ApplicationEventPublisher eventPublisher;
+    private final EntityManagerFactory entityManagerFactory;
+    private final EntityManager entityManager;
+    private final TaskScheduler taskScheduler;
+
+    // Limite superior da primeira página da listagem por keyset (nenhum produto é criado depois disso)
+    private static final LocalDateTime INICIO_LISTAGEM = LocalDateTime.of(9999, 12, 31, 23, 59, 59);
+
+    // false volta para a busca antiga por LIKE no banco
+    @Value("${busca.full-text.enabled:true}")
+    private boolean buscaFullText;
+
+    @Value("${datasource.replicas.enabled:false}")
+    private boolean replicasHabilitadas;
+
+    // Atraso máximo aceito numa réplica somado ao intervalo entre verificações: o pior caso de atraso
+    @Value("#{${datasource.replicas.atraso-maximo-ms:2000} + ${datasource.replicas.verificacao-ms:5000}}")
+    private long atrasoReplicaMs;
 
     @Transactional
     public Produto criarProduto(Produto produto, Loja loja, Usuario usuario) {
@@ -39,7 +82,31 @@ public class ProdutoService {
         produto.setAtivo(true);
         produto.setTotalVendas(0);
 
-        return produtoRepository.save(produto);
+        Produto produtoSalvo = produtoRepository.save(produto);
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.de(produtoSalvo));
+        return produtoSalvo;
+    }
+
+    // Um lote da importação em massa, já validado pelo chamador (Bean Validation e validarProduto): um INSERT
+    // em batch por lote (ids por sequência) e uma transação por lote. Cada transação tem o seu EntityManager,
+    // então as entidades de um lote não se acumulam no contexto dos seguintes.
+    @Transactional
+    public int criarProdutosEmLote(List<Produto> produtos, Loja loja, Usuario usuario) {
+        if (!loja.getUsuario().getId().equals(usuario.getId())) {
+            throw new ValidationException("Você não tem permissão para adicionar produtos a esta loja");
+        }
+
+        Loja referencia = entityManager.getReference(Loja.class, loja.getId());
+        for (Produto produto : produtos) {
+            produto.setLoja(referencia);
+            produto.setAtivo(true);
+            produto.setTotalVendas(0);
+        }
+
+        List<Produto> salvos = produtoRepository.saveAll(produtos);
+        boolean lojaAtiva = Boolean.TRUE.equals(loja.getAtivo());
+        salvos.forEach(produto -> eventPublisher.publishEvent(ProdutoAlteradoEvent.de(produto, lojaAtiva)));
+        return salvos.size();
     }
 
     @Transactional
@@ -64,7 +131,9 @@ public class ProdutoService {
                     produto.setModelo(produtoAtualizado.getModelo());
                     produto.setDestaque(produtoAtualizado.getDestaque());
 
-                    return produtoRepository.save(produto);
+                    Produto produtoSalvo = produtoRepository.save(produto);
+                    eventPublisher.publishEvent(ProdutoAlteradoEvent.de(produtoSalvo));
+                    return produtoSalvo;
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado"));
     }
@@ -84,36 +153,106 @@ public class ProdutoService {
                 .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado"));
     }
 
-    public List<Produto> listarProdutosAtivos() {
-        return produtoRepository.findProdutosAtivos();
-    }
-
+    @Transactional(readOnly = true)
     public Page<Produto> listarProdutosDestaque(Pageable pageable) {
         return produtoRepository.findProdutosDestaque(pageable);
     }
 
-    public List<Produto> buscarPorTermo(String termo) {
-        return produtoRepository.buscarPorTermo(termo);
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<Produto> buscarPorTermo(String termo, String cursor, int limite) {
+        if (!buscaFullText) {
+            long aposId = CursorUtil.decodificar(cursor);
+            List<Produto> produtos = produtoRepository.buscarPorTermo(termo, aposId, PageRequest.of(0, limite + 1));
+            Long total = cursor == null ? produtoRepository.contarPorTermo(termo) : null;
+            return PaginaCursorDTO.deConsulta(produtos, limite, Produto::getId, total);
+        }
+
+        // No modo full-text a ordem é a do índice e o cursor é a chave (pontuação, id) do último produto
+        // da página: a próxima começa estritamente depois dela, então produtos que entram ou saem do índice
+        // entre uma página e outra não fazem itens pularem nem se repetirem
+        List<ProdutoSearchIndex.Resultado> resultados = produtoSearchIndex.buscarComPontuacao(termo);
+        CursorUtil.ChavePontuacao chave = CursorUtil.decodificarChavePontuacao(cursor);
+        int inicio = chave == null ? 0 : posicaoApos(resultados, chave);
+
+        // Só a fatia da página é carregada do banco. Os produtos já inativos no banco (o índice é atualizado
+        // depois do commit) saem antes de a página ser fechada, e a fatia seguinte completa o que faltar
+        List<Produto> produtos = new ArrayList<>(limite + 1);
+        List<ProdutoSearchIndex.Resultado> chaves = new ArrayList<>(limite + 1);
+        int posicao = inicio;
+        while (produtos.size() <= limite && posicao < resultados.size()) {
+            int fim = Math.min(posicao + limite + 1 - produtos.size(), resultados.size());
+            List<ProdutoSearchIndex.Resultado> fatia = resultados.subList(posicao, fim);
+            Map<Long, Produto> porId = produtoRepository.findAllById(
+                            fatia.stream().map(ProdutoSearchIndex.Resultado::produtoId).toList()).stream()
+                    .collect(Collectors.toMap(Produto::getId, Function.identity()));
+            for (ProdutoSearchIndex.Resultado resultado : fatia) {
+                Produto produto = porId.get(resultado.produtoId());
+                if (produto != null && visivelNaBusca(produto)) {
+                    produtos.add(produto);
+                    chaves.add(resultado);
+                }
+            }
+            posicao = fim;
+        }
+
+        boolean temMais = produtos.size() > limite;
+        ProdutoSearchIndex.Resultado ultimo = temMais ? chaves.get(limite - 1) : null;
+        return PaginaCursorDTO.<Produto>builder()
+                .itens(temMais ? produtos.subList(0, limite) : produtos)
+                .proximoCursor(ultimo != null ? CursorUtil.codificar(ultimo.pontuacao(), ultimo.produtoId()) : null)
+                .total(cursor == null ? (long) resultados.size() : null)
+                .build();
+    }
+
+    // Catálogo paginado por keyset; sem cursor começa do produto mais recente.
+    // O total não é calculado: um COUNT com os filtros custaria mais que a própria página.
+    @Transactional(readOnly = true)
+    public PaginaCursorDTO<Produto> listarProdutos(FiltroProdutos filtro, String cursor, int limite) {
+        if (filtro.minPreco() != null && filtro.maxPreco() != null
+                && filtro.minPreco().compareTo(filtro.maxPreco()) > 0) {
+            throw new ValidationException("Preço mínimo maior que o preço máximo");
+        }
+
+        CursorUtil.ChaveData chave = CursorUtil.decodificarChaveData(cursor);
+        LocalDateTime aposData = chave != null ? chave.data() : INICIO_LISTAGEM;
+        long aposId = chave != null ? chave.id() : Long.MAX_VALUE;
+
+        List<Produto> produtos = produtoRepository.listarPorKeyset(
+                filtro.lojaId(), filtro.categoria(), filtro.minPreco(), filtro.maxPreco(),
+                aposData, aposId, PageRequest.of(0, limite + 1));
+
+        return PaginaCursorDTO.deConsultaComCursor(produtos, limite,
+                p -> CursorUtil.codificar(p.getDataCriacao(), p.getId()), null);
     }
 
+    @Transactional(readOnly = true)
     public List<Produto> buscarPorNome(String nome) {
         return produtoRepository.buscarPorNome(nome);
     }
 
+    @Transactional(readOnly = true)
     public List<Produto> listarProdutosPorLoja(Long lojaId) {
         return produtoRepository.findByLojaIdAndAtivoTrue(lojaId);
     }
 
+    @Transactional(readOnly = true)
     public Page<Produto> listarMaisVendidosPorLoja(Long lojaId, Pageable pageable) {
         return produtoRepository.findMaisVendidosPorLoja(lojaId, pageable);
     }
 
+    @Transactional(readOnly = true)
     public Optional<Produto> buscarProdutoAtivoPorId(Long id) {
         return produtoRepository.findById(id)
                 .filter(Produto::getAtivo)
                 .filter(p -> p.getLoja() != null && Boolean.TRUE.equals(p.getLoja().getAtivo()));
     }
 
+    @Transactional(readOnly = true)
+    public List<Produto> buscarPorIds(Collection<Long> ids) {
+        return produtoRepository.findAllById(ids);
+    }
+
+    @Transactional(readOnly = true)
     public Optional<Produto> buscarPorId(Long id) {
         return produtoRepository.findById(id);
     }
@@ -128,7 +267,9 @@ public class ProdutoService {
                     }
 
                     produto.setAtivo(false);
-                    return produtoRepository.save(produto);
+                    Produto produtoSalvo = produtoRepository.save(produto);
+                    eventPublisher.publishEvent(ProdutoAlteradoEvent.de(produtoSalvo));
+                    return produtoSalvo;
                 })
                 .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado"));
     }
@@ -149,29 +290,129 @@ public class ProdutoService {
         }
 
         produtoRepository.delete(produto);
+        eventPublisher.publishEvent(ProdutoAlteradoEvent.removido(id));
     }
 
     @Transactional
-    public Produto atualizarEstoque(Long produtoId, Long quantidadeVendida) {
-        return produtoRepository.findById(produtoId)
-                .map(produto -> {
-                    if (produto.getQuantidade() >= quantidadeVendida) {
-                        produto.setQuantidade(produto.getQuantidade() - quantidadeVendida);
-                        produto.setTotalVendas(produto.getTotalVendas() + quantidadeVendida.intValue());
-                        return produtoRepository.save(produto);
-                    } else {
-                        throw new ValidationException("Estoque insuficiente para o produto: " + produto.getNome());
+    public void atualizarEstoque(Long produtoId, Long quantidadeVendida) {
+        if (quantidadeVendida == null || quantidadeVendida <= 0) {
+            throw new ValidationException("Quantidade vendida deve ser maior que zero");
+        }
+
+        int atualizados = produtoRepository.baixarEstoque(produtoId, quantidadeVendida, quantidadeVendida.intValue());
+        if (atualizados == 0) {
+            // Só no caminho de falha: distingue produto inexistente de saldo insuficiente
+            Produto produto = produtoRepository.findById(produtoId)
+                    .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado"));
+            throw new ValidationException("Estoque insuficiente para o produto: " + produto.getNome());
+        }
+    }
+
+    /**
+     * Baixa o estoque de vários produtos de uma vez, com a mesma regra de {@link #atualizarEstoque}:
+     * só há baixa onde o saldo cobre a quantidade. Retorna os ids que ficaram sem baixa por falta de
+     * estoque; cabe ao chamador lançar a exceção para desfazer a transação inteira.
+     */
+    @Transactional
+    public Set<Long> baixarEstoqueEmLote(Map<Long, Long> quantidadesPorProduto) {
+        // TreeMap: arrays em ordem de id
+        Map<Long, Long> ordenado = new TreeMap<>(quantidadesPorProduto);
+        Long[] ids = ordenado.keySet().toArray(new Long[0]);
+        Long[] quantidades = ordenado.values().toArray(new Long[0]);
+
+        List<Long> baixados = produtoRepository.baixarEstoqueEmLote(ids, quantidades);
+        removerDoCache(baixados);
+
+        Set<Long> semEstoque = new HashSet<>(ordenado.keySet());
+        baixados.forEach(semEstoque::remove);
+        return semEstoque;
+    }
+
+    /**
+     * Um lote da atualização em massa de preço/estoque, num único UPDATE. A posse da loja é verificada
+     * uma vez pelo chamador; o filtro por loja_id no SQL impede que ids de outras lojas sejam tocados.
+     * Retorna os ids alterados.
+     */
+    @Transactional
+    public List<Long> atualizarPrecoEstoqueEmLote(Long lojaId, List<AlteracaoPrecoEstoque> alteracoes) {
+        int tamanho = alteracoes.size();
+        Long[] ids = new Long[tamanho];
+        BigDecimal[] precos = new BigDecimal[tamanho];
+        Long[] quantidades = new Long[tamanho];
+        for (int i = 0; i < tamanho; i++) {
+            AlteracaoPrecoEstoque alteracao = alteracoes.get(i);
+            ids[i] = alteracao.produtoId();
+            precos[i] = alteracao.preco();
+            quantidades[i] = alteracao.quantidade();
+        }
+
+        List<Long> alterados = produtoRepository.atualizarPrecoEstoqueEmLote(lojaId, ids, precos, quantidades);
+        aposAlteracaoEmLote(lojaId, alterados);
+        return alterados;
+    }
+
+    // Um bloco do reajuste percentual (ver ProdutoRepository.reajustarPrecosEmLote); lista vazia = fim
+    @Transactional
+    public List<Long> reajustarPrecosEmLote(Long lojaId, String categoria, BigDecimal fator, Long aposId, int lote) {
+        List<Long> alterados = produtoRepository.reajustarPrecosEmLote(lojaId, categoria, fator, aposId, lote);
+        aposAlteracaoEmLote(lojaId, alterados);
+        return alterados;
+    }
+
+    private void aposAlteracaoEmLote(Long lojaId, List<Long> alterados) {
+        if (!alterados.isEmpty()) {
+            removerDoCache(alterados);
+            eventPublisher.publishEvent(new PrecoEstoqueAlteradoEvent(lojaId, alterados));
+        }
+    }
+
+    // SQL nativo passa por fora do Hibernate, então o cache de segundo nível não sabe da mudança.
+    // Remove agora e de novo após o commit: uma leitura concorrente feita antes do commit ainda
+    // veria o estoque antigo e o colocaria de volta no cache. Com réplicas de leitura, uma leitura
+    // numa réplica atrasada pode fazer o mesmo depois do commit, então há uma última remoção
+    // quando o atraso máximo tiver passado.
+    private void removerDoCache(List<Long> produtoIds) {
+        Cache cache = entityManagerFactory.getCache();
+        produtoIds.forEach(id -> cache.evict(Produto.class, id));
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    produtoIds.forEach(id -> cache.evict(Produto.class, id));
+                    if (replicasHabilitadas) {
+                        taskScheduler.schedule(() -> produtoIds.forEach(id -> cache.evict(Produto.class, id)),
+                                Instant.now().plusMillis(atrasoReplicaMs));
                     }
-                })
-                .orElseThrow(() -> new ResourceNotFoundException("Produto não encontrado"));
+                }
+            });
+        }
     }
 
+    @Transactional(readOnly = true)
     public Long contarProdutosAtivosPorLoja(Long lojaId) {
         return produtoRepository.countProdutosAtivosPorLoja(lojaId);
     }
 
+    @Transactional(readOnly = true)
+    public long contarProdutosPorLoja(Long lojaId) {
+        return produtoRepository.countByLojaId(lojaId);
+    }
+
+    // Primeira posição estritamente depois da chave na ordem do índice (a chave pode já não estar nele)
+    private static int posicaoApos(List<ProdutoSearchIndex.Resultado> resultados, CursorUtil.ChavePontuacao chave) {
+        int posicao = Collections.binarySearch(resultados,
+                new ProdutoSearchIndex.Resultado(chave.id(), chave.pontuacao()), ProdutoSearchIndex.ORDEM);
+        return posicao >= 0 ? posicao + 1 : -posicao - 1;
+    }
+
+    private static boolean visivelNaBusca(Produto produto) {
+        return Boolean.TRUE.equals(produto.getAtivo())
+                && produto.getLoja() != null && Boolean.TRUE.equals(produto.getLoja().getAtivo());
+    }
+
     // Método auxiliar para validação
-    private void validarProduto(Produto produto) {
+    public void validarProduto(Produto produto) {
         if (produto.getNome() == null || produto.getNome().trim().isEmpty()) {
             throw new ValidationException("Nome do produto é obrigatório");
         }
@@ -209,4 +450,16 @@ public class ProdutoService {
             throw new ValidationException("Modelo deve ter no máximo 100 caracteres");
         }
     }
-}
\ No newline at end of file
+
+    // Filtros opcionais da listagem do catálogo; campos nulos não filtram
+    public record FiltroProdutos(Long lojaId, String categoria, BigDecimal minPreco, BigDecimal maxPreco) {
+
+        public static FiltroProdutos daLoja(Long lojaId) {
+            return new FiltroProdutos(lojaId, null, null, null);
+        }
+    }
+
+    // Uma linha da atualização em massa; preco ou quantidade null mantém o valor atual
+    public record AlteracaoPrecoEstoque(Long produtoId, BigDecimal preco, Long quantidade) {
+    }
+}
@@ -0,0 +1,437 @@
+package io.github.brunoeugeniodev.marketplace.service;
+
+import io.github.brunoeugeniodev.marketplace.dto.SugestaoDTO;
+import io.github.brunoeugeniodev.marketplace.event.LojaAlteradaEvent;
+import io.github.brunoeugeniodev.marketplace.event.ProdutoAlteradoEvent;
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.repository.LojaRepository;
+import io.github.brunoeugeniodev.marketplace.repository.ProdutoRepository;
+import io.github.brunoeugeniodev.marketplace.util.TextoBuscaUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Autocomplete da barra de busca: trie compactada (radix tree) com nomes, marcas e categorias
+ * de produtos ativos de lojas ativas e nomes de lojas ativas.
+ * Cada nó guarda as melhores sugestões da sua subárvore, então uma consulta só percorre o prefixo.
+ * Toda sugestão também é indexada a partir de cada palavra ("galaxy" encontra "Samsung Galaxy S21").
+ * Atualizações chegam pelos eventos de produto/loja e recalculam só os caminhos afetados; desativar
+ * uma loja retira também as sugestões dos produtos dela, e reativar devolve as dos produtos ativos.
+ */
+@Component
+@Slf4j
+public class SugestaoBuscaIndex {
+
+    public static final int MAXIMO_SUGESTOES = 10;
+
+    // Cada nó guarda mais que o máximo porque a mesma sugestão pode vir de filhos diferentes
+    private static final int TOP_POR_NO = MAXIMO_SUGESTOES * 2;
+    private static final int MAXIMO_PALAVRAS_INDEXADAS = 4;
+
+    private final ProdutoRepository produtoRepository;
+    private final LojaRepository lojaRepository;
+
+    // Leitura dos produtos de uma loja reativada, fora da transação que publicou o evento
+    private final TransactionTemplate leitura;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private No raiz = new No("");
+    private Map<String, Sugestao> sugestoes = new HashMap<>();
+    private Map<Long, ProdutoAlteradoEvent> produtosIndexados = new HashMap<>();
+    private Map<Long, LojaAlteradaEvent> lojasIndexadas = new HashMap<>();
+
+    public SugestaoBuscaIndex(ProdutoRepository produtoRepository,
+                              LojaRepository lojaRepository,
+                              PlatformTransactionManager transactionManager) {
+        this.produtoRepository = produtoRepository;
+        this.lojaRepository = lojaRepository;
+        this.leitura = new TransactionTemplate(transactionManager);
+        this.leitura.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.leitura.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void reconstruir() {
+        lock.writeLock().lock();
+        try {
+            raiz = new No("");
+            sugestoes = new HashMap<>();
+            produtosIndexados = new HashMap<>();
+            lojasIndexadas = new HashMap<>();
+
+            for (Produto produto : produtoRepository.findAtivosDeLojasAtivas()) {
+                indexarProduto(ProdutoAlteradoEvent.de(produto, true));
+            }
+            for (Loja loja : lojaRepository.findByAtivoTrue()) {
+                indexarLoja(LojaAlteradaEvent.de(loja));
+            }
+
+            log.info("Índice de sugestões carregado: {} sugestões", sugestoes.size());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProdutoAlterado(ProdutoAlteradoEvent evento) {
+        lock.writeLock().lock();
+        try {
+            desindexarProduto(evento.getProdutoId());
+            if (evento.isPesquisavel()) {
+                indexarProduto(evento);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLojaAlterada(LojaAlteradaEvent evento) {
+        Long lojaId = evento.getLojaId();
+        lock.writeLock().lock();
+        try {
+            boolean estavaAtiva = lojasIndexadas.containsKey(lojaId);
+            desindexarLoja(lojaId);
+            if (!evento.isAtivo()) {
+                List<Long> produtosDaLoja = new ArrayList<>();
+                for (ProdutoAlteradoEvent produto : produtosIndexados.values()) {
+                    if (lojaId.equals(produto.getLojaId())) {
+                        produtosDaLoja.add(produto.getProdutoId());
+                    }
+                }
+                produtosDaLoja.forEach(this::desindexarProduto);
+                return;
+            }
+
+            indexarLoja(evento);
+            if (!estavaAtiva) {
+                // Loja nova ou reativada; a consulta roda com o write lock, como no ProdutoSearchIndex
+                List<Produto> produtos = leitura.execute(status -> produtoRepository.findByLojaIdAndAtivoTrue(lojaId));
+                for (Produto produto : produtos) {
+                    desindexarProduto(produto.getId());
+                    indexarProduto(ProdutoAlteradoEvent.de(produto, true));
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<SugestaoDTO> sugerir(String prefixo, int limite) {
+        String chave = normalizar(prefixo);
+        if (chave.isEmpty()) {
+            return List.of();
+        }
+
+        lock.readLock().lock();
+        try {
+            No no = localizar(chave);
+            if (no == null) {
+                return List.of();
+            }
+
+            int quantidade = Math.min(limite, MAXIMO_SUGESTOES);
+            List<SugestaoDTO> resultado = new ArrayList<>(quantidade);
+            for (Sugestao sugestao : no.top) {
+                if (resultado.size() == quantidade) {
+                    break;
+                }
+                resultado.add(new SugestaoDTO(sugestao.texto, sugestao.tipo));
+            }
+            return resultado;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------- contribuições de produtos e lojas ----------
+
+    // Ranking: vendas primeiro, avaliação como desempate
+    private void indexarProduto(ProdutoAlteradoEvent produto) {
+        double peso = valor(produto.getTotalVendas()) + valor(produto.getAvaliacaoMedia()) / 10.0;
+        contribuir("PRODUTO", produto.getNome(), produto.getProdutoId(), peso);
+        contribuir("MARCA", produto.getMarca(), produto.getProdutoId(), peso);
+        contribuir("CATEGORIA", produto.getCategoria(), produto.getProdutoId(), peso);
+        produtosIndexados.put(produto.getProdutoId(), produto);
+    }
+
+    private void desindexarProduto(Long produtoId) {
+        ProdutoAlteradoEvent anterior = produtosIndexados.remove(produtoId);
+        if (anterior != null) {
+            retirar("PRODUTO", anterior.getNome(), produtoId);
+            retirar("MARCA", anterior.getMarca(), produtoId);
+            retirar("CATEGORIA", anterior.getCategoria(), produtoId);
+        }
+    }
+
+    private void indexarLoja(LojaAlteradaEvent loja) {
+        double peso = valor(loja.getTotalAvaliacoes()) + valor(loja.getAvaliacaoMedia()) / 10.0;
+        contribuir("LOJA", loja.getNome(), loja.getLojaId(), peso);
+        lojasIndexadas.put(loja.getLojaId(), loja);
+    }
+
+    private void desindexarLoja(Long lojaId) {
+        LojaAlteradaEvent anterior = lojasIndexadas.remove(lojaId);
+        if (anterior != null) {
+            retirar("LOJA", anterior.getNome(), lojaId);
+        }
+    }
+
+    // Sugestões com o mesmo texto e tipo (ex.: a mesma marca em vários produtos) somam os pesos
+    private void contribuir(String tipo, String texto, Long origemId, double peso) {
+        String normalizado = normalizar(texto);
+        if (normalizado.isEmpty()) {
+            return;
+        }
+
+        String id = tipo + ":" + normalizado;
+        Sugestao sugestao = sugestoes.get(id);
+        boolean nova = sugestao == null;
+        if (nova) {
+            sugestao = new Sugestao(texto.trim(), tipo, chaves(normalizado));
+            sugestoes.put(id, sugestao);
+        }
+        sugestao.contribuicoes.put(origemId, peso);
+        sugestao.recalcularPeso();
+
+        for (String chave : sugestao.chaves) {
+            if (nova) {
+                inserir(chave, sugestao);
+            } else {
+                recalcularCaminho(chave);
+            }
+        }
+    }
+
+    private void retirar(String tipo, String texto, Long origemId) {
+        String normalizado = normalizar(texto);
+        if (normalizado.isEmpty()) {
+            return;
+        }
+
+        String id = tipo + ":" + normalizado;
+        Sugestao sugestao = sugestoes.get(id);
+        if (sugestao == null || sugestao.contribuicoes.remove(origemId) == null) {
+            return;
+        }
+
+        if (sugestao.contribuicoes.isEmpty()) {
+            sugestoes.remove(id);
+            for (String chave : sugestao.chaves) {
+                remover(chave, sugestao);
+            }
+        } else {
+            sugestao.recalcularPeso();
+            for (String chave : sugestao.chaves) {
+                recalcularCaminho(chave);
+            }
+        }
+    }
+
+    // ---------- radix tree ----------
+
+    private void inserir(String chave, Sugestao sugestao) {
+        List<No> caminho = new ArrayList<>();
+        No no = raiz;
+        caminho.add(no);
+        String resto = chave;
+
+        while (!resto.isEmpty()) {
+            No filho = no.filhos.get(resto.charAt(0));
+            if (filho == null) {
+                filho = new No(resto);
+                no.filhos.put(resto.charAt(0), filho);
+                no = filho;
+                caminho.add(no);
+                resto = "";
+                break;
+            }
+
+            int comum = prefixoComum(filho.rotulo, resto);
+            if (comum < filho.rotulo.length()) {
+                // Divide a aresta: pai -> intermediário -> filho
+                No intermediario = new No(filho.rotulo.substring(0, comum));
+                filho.rotulo = filho.rotulo.substring(comum);
+                intermediario.filhos.put(filho.rotulo.charAt(0), filho);
+                intermediario.top = filho.top;
+                no.filhos.put(intermediario.rotulo.charAt(0), intermediario);
+                filho = intermediario;
+            }
+
+            no = filho;
+            caminho.add(no);
+            resto = resto.substring(comum);
+        }
+
+        no.terminais.add(sugestao);
+        recalcular(caminho);
+    }
+
+    private void remover(String chave, Sugestao sugestao) {
+        List<No> caminho = caminho(chave);
+        if (caminho == null) {
+            return;
+        }
+
+        No alvo = caminho.get(caminho.size() - 1);
+        alvo.terminais.remove(sugestao);
+
+        // Poda folhas que ficaram vazias
+        for (int i = caminho.size() - 1; i > 0; i--) {
+            No no = caminho.get(i);
+            if (!no.terminais.isEmpty() || !no.filhos.isEmpty()) {
+                break;
+            }
+            caminho.get(i - 1).filhos.remove(no.rotulo.charAt(0));
+            caminho.remove(i);
+        }
+
+        recalcular(caminho);
+    }
+
+    private void recalcularCaminho(String chave) {
+        List<No> caminho = caminho(chave);
+        if (caminho != null) {
+            recalcular(caminho);
+        }
+    }
+
+    // Caminho exato da raiz até o nó da chave, ou null se a chave não existe
+    private List<No> caminho(String chave) {
+        List<No> caminho = new ArrayList<>();
+        No no = raiz;
+        caminho.add(no);
+        String resto = chave;
+
+        while (!resto.isEmpty()) {
+            No filho = no.filhos.get(resto.charAt(0));
+            if (filho == null || !resto.startsWith(filho.rotulo)) {
+                return null;
+            }
+            no = filho;
+            caminho.add(no);
+            resto = resto.substring(filho.rotulo.length());
+        }
+        return caminho;
+    }
+
+    // Nó cuja subárvore contém todas as chaves que começam com o prefixo
+    private No localizar(String prefixo) {
+        No no = raiz;
+        String resto = prefixo;
+
+        while (!resto.isEmpty()) {
+            No filho = no.filhos.get(resto.charAt(0));
+            if (filho == null) {
+                return null;
+            }
+            if (resto.length() <= filho.rotulo.length()) {
+                return filho.rotulo.startsWith(resto) ? filho : null;
+            }
+            if (!resto.startsWith(filho.rotulo)) {
+                return null;
+            }
+            no = filho;
+            resto = resto.substring(filho.rotulo.length());
+        }
+        return no;
+    }
+
+    // Recalcula o top de baixo para cima: cada nó junta os próprios terminais com o top dos filhos
+    private static void recalcular(List<No> caminho) {
+        for (int i = caminho.size() - 1; i >= 0; i--) {
+            No no = caminho.get(i);
+            Set<Sugestao> candidatas = new HashSet<>(no.terminais);
+            for (No filho : no.filhos.values()) {
+                candidatas.addAll(filho.top);
+            }
+
+            List<Sugestao> ordenadas = new ArrayList<>(candidatas);
+            ordenadas.sort(Sugestao.POR_RELEVANCIA);
+            no.top = ordenadas.size() > TOP_POR_NO
+                    ? List.copyOf(ordenadas.subList(0, TOP_POR_NO))
+                    : List.copyOf(ordenadas);
+        }
+    }
+
+    // ---------- utilitários ----------
+
+    private static String normalizar(String texto) {
+        return TextoBuscaUtil.normalizar(texto).replaceAll("[^a-z0-9]+", " ").trim();
+    }
+
+    // A frase inteira e o sufixo a partir de cada palavra seguinte
+    private static List<String> chaves(String normalizado) {
+        List<String> chaves = new ArrayList<>();
+        chaves.add(normalizado);
+        int inicio = normalizado.indexOf(' ');
+        while (inicio >= 0 && chaves.size() < MAXIMO_PALAVRAS_INDEXADAS) {
+            chaves.add(normalizado.substring(inicio + 1));
+            inicio = normalizado.indexOf(' ', inicio + 1);
+        }
+        return chaves;
+    }
+
+    private static int prefixoComum(String a, String b) {
+        int limite = Math.min(a.length(), b.length());
+        int i = 0;
+        while (i < limite && a.charAt(i) == b.charAt(i)) {
+            i++;
+        }
+        return i;
+    }
+
+    private static double valor(Number numero) {
+        return numero != null ? numero.doubleValue() : 0.0;
+    }
+
+    private static final class No {
+        private String rotulo;
+        private final Map<Character, No> filhos = new HashMap<>();
+        private final Set<Sugestao> terminais = new HashSet<>();
+        private List<Sugestao> top = List.of();
+
+        private No(String rotulo) {
+            this.rotulo = rotulo;
+        }
+    }
+
+    private static final class Sugestao {
+        private static final Comparator<Sugestao> POR_RELEVANCIA = Comparator
+                .comparingDouble((Sugestao s) -> s.peso).reversed()
+                .thenComparing(s -> s.texto);
+
+        private final String texto;
+        private final String tipo;
+        private final List<String> chaves;
+        private final Map<Long, Double> contribuicoes = new HashMap<>();
+        private double peso;
+
+        private Sugestao(String texto, String tipo, List<String> chaves) {
+            this.texto = texto;
+            this.tipo = tipo;
+            this.chaves = chaves;
+        }
+
+        private void recalcularPeso() {
+            double soma = 0.0;
+            for (double valor : contribuicoes.values()) {
+                soma += valor;
+            }
+            peso = soma;
+        }
+    }
+}
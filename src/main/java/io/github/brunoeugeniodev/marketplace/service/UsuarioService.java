@@ -1,5 +1,6 @@
 package io.github.brunoeugeniodev.marketplace.service;
 
+import io.github.brunoeugeniodev.marketplace.event.UsuarioAlteradoEvent;
 import io.github.brunoeugeniodev.marketplace.exception.ResourceNotFoundException;
 import io.github.brunoeugeniodev.marketplace.models.Carrinho;
 import io.github.brunoeugeniodev.marketplace.models.Usuario;
@@ -8,6 +9,7 @@ import io.github.brunoeugeniodev.marketplace.repository.UsuarioRepository;
 import jakarta.validation.ValidationException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.User;
@@ -31,9 +33,12 @@ public class UsuarioService implements UserDetailsService {
     private final UsuarioRepository usuarioRepository;
     private final CarrinhoRepository carrinhoRepository;
     private final PasswordEncoder passwordEncoder;
+    private final ApplicationEventPublisher eventPublisher;
 
+    // Autenticação lê sempre do primário (transação sem readOnly): logo depois do cadastro ou da troca
+    // de senha a réplica pode ainda não ter a alteração, e o login falharia
     @Override
-    @Transactional(readOnly = true)
+    @Transactional
     public UserDetails loadUserByUsername(String email) throws UsernameNotFoundException {
         log.debug("Carregando usuário por email: {}", email);
 
@@ -60,7 +65,8 @@ public class UsuarioService implements UserDetailsService {
                 .collect(Collectors.toList());
     }
 
-    @Transactional(readOnly = true)
+    // Também no primário: é usado para criar o carrinho logo depois do cadastro
+    @Transactional
     public Usuario loadUsuarioByUsername(String email) {
         return usuarioRepository.findByEmail(email)
                 .filter(Usuario::getAtivo)
@@ -168,6 +174,8 @@ public class UsuarioService implements UserDetailsService {
 
         return usuarioRepository.findById(id)
                 .map(usuario -> {
+                    eventPublisher.publishEvent(new UsuarioAlteradoEvent(usuario.getEmail()));
+
                     // Valida email único se for alterado
                     if (!usuario.getEmail().equals(usuarioAtualizado.getEmail())
                             && existsByEmailAndIdNot(usuarioAtualizado.getEmail(), id)) {
@@ -212,6 +220,7 @@ public class UsuarioService implements UserDetailsService {
                 .map(usuario -> {
                     usuario.setAtivo(false);
                     Usuario usuarioDesativado = usuarioRepository.save(usuario);
+                    eventPublisher.publishEvent(new UsuarioAlteradoEvent(usuarioDesativado.getEmail()));
                     log.info("Usuário desativado: ID={}, Email={}", usuarioDesativado.getId(), usuarioDesativado.getEmail());
                     return usuarioDesativado;
                 })
@@ -277,7 +286,10 @@ public class UsuarioService implements UserDetailsService {
         Usuario usuario = usuarioRepository.findById(id)
                 .orElseThrow(() -> new ResourceNotFoundException("Usuário não encontrado com ID: " + id));
 
+        // O carrinho não é mapeado no Usuario (um @OneToOne inverso custaria um SELECT a cada usuário carregado)
+        carrinhoRepository.findByUsuarioId(id).ifPresent(carrinhoRepository::delete);
         usuarioRepository.delete(usuario);
+        eventPublisher.publishEvent(new UsuarioAlteradoEvent(usuario.getEmail()));
         log.info("Usuário deletado: ID={}, Email={}", usuario.getId(), usuario.getEmail());
     }
 
@@ -289,6 +301,7 @@ public class UsuarioService implements UserDetailsService {
                 .map(usuario -> {
                     usuario.setSenha(passwordEncoder.encode(novaSenha));
                     Usuario usuarioAtualizado = usuarioRepository.save(usuario);
+                    eventPublisher.publishEvent(new UsuarioAlteradoEvent(usuarioAtualizado.getEmail()));
                     log.info("Senha alterada para usuário: ID={}, Email={}", usuarioAtualizado.getId(), usuarioAtualizado.getEmail());
                     return usuarioAtualizado;
                 })
@@ -335,6 +348,7 @@ public class UsuarioService implements UserDetailsService {
                         roles.add(role);
                         usuario.setRoles(roles);
                         Usuario usuarioAtualizado = usuarioRepository.save(usuario);
+                        eventPublisher.publishEvent(new UsuarioAlteradoEvent(usuarioAtualizado.getEmail()));
                         log.info("Role {} adicionada para usuário: ID={}", role, usuarioAtualizado.getId());
                         return usuarioAtualizado;
                     }
@@ -355,6 +369,7 @@ public class UsuarioService implements UserDetailsService {
                         roles.remove(role);
                         usuario.setRoles(roles);
                         Usuario usuarioAtualizado = usuarioRepository.save(usuario);
+                        eventPublisher.publishEvent(new UsuarioAlteradoEvent(usuarioAtualizado.getEmail()));
                         log.info("Role {} removida do usuário: ID={}", role, usuarioAtualizado.getId());
                         return usuarioAtualizado;
                     }
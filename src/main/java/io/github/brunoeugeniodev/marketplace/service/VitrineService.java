@@ -0,0 +1,150 @@
+package io.github.brunoeugeniodev.marketplace.service;
+
+import io.github.brunoeugeniodev.marketplace.dto.LojaListagemDTO;
+import io.github.brunoeugeniodev.marketplace.dto.ProdutoDTO;
+import io.github.brunoeugeniodev.marketplace.event.LojaAlteradaEvent;
+import io.github.brunoeugeniodev.marketplace.event.PrecoEstoqueAlteradoEvent;
+import io.github.brunoeugeniodev.marketplace.event.ProdutoAlteradoEvent;
+import io.github.brunoeugeniodev.marketplace.event.VitrineAtualizadaEvent;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.util.MapperUtil;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Modelo de leitura da home e da página de destaques: as lojas recomendadas e os produtos em destaque
+ * ficam num snapshot imutável, então renderizar "/" não faz consulta nenhuma.
+ * <p>
+ * Alterações de produto/loja só marcam o snapshot como desatualizado; a reconstrução acontece na
+ * próxima verificação agendada, o que junta uma rajada de edições numa única recarga. Além disso o
+ * snapshot é refeito periodicamente, para pegar mudanças que não passam pelos services (ex.: baixa
+ * de estoque por UPDATE direto).
+ */
+@Service
+@Slf4j
+public class VitrineService {
+
+    private final LojaService lojaService;
+    private final ProdutoService produtoService;
+    private final MapperUtil mapperUtil;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transacao;
+
+    @Value("${vitrine.max-lojas:12}")
+    private int maxLojas;
+
+    @Value("${vitrine.max-produtos:12}")
+    private int maxProdutos;
+
+    @Value("${vitrine.idade-maxima-ms:300000}")
+    private long idadeMaximaMs;
+
+    private volatile Snapshot snapshot;
+    private volatile boolean desatualizado = true;
+
+    public VitrineService(LojaService lojaService,
+                          ProdutoService produtoService,
+                          MapperUtil mapperUtil,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager) {
+        this.lojaService = lojaService;
+        this.produtoService = produtoService;
+        this.mapperUtil = mapperUtil;
+        this.eventPublisher = eventPublisher;
+        // Sem readOnly de propósito, para ler do primário: a vitrine é refeita logo depois do commit que
+        // a invalidou, quando uma réplica de leitura ainda pode não ter a alteração
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    public Snapshot obter() {
+        Snapshot atual = snapshot;
+        if (atual != null) {
+            return atual;
+        }
+        // Só acontece se uma página for pedida antes do ApplicationReadyEvent
+        return atualizar();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void carregar() {
+        atualizar();
+    }
+
+    @Scheduled(fixedDelayString = "${vitrine.verificacao-ms:5000}")
+    public void atualizarSeNecessario() {
+        Snapshot atual = snapshot;
+        boolean expirado = atual == null
+                || atual.geradoEm().isBefore(LocalDateTime.now().minus(Duration.ofMillis(idadeMaximaMs)));
+        if (desatualizado || expirado) {
+            atualizar();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onProdutoAlterado(ProdutoAlteradoEvent evento) {
+        desatualizado = true;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPrecoEstoqueAlterado(PrecoEstoqueAlteradoEvent evento) {
+        desatualizado = true;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onLojaAlterada(LojaAlteradaEvent evento) {
+        desatualizado = true;
+    }
+
+    private synchronized Snapshot atualizar() {
+        // Limpa a flag antes de ler: um evento que chegar durante a leitura força outra recarga
+        desatualizado = false;
+        try {
+            Snapshot novo = transacao.execute(status -> montar());
+            snapshot = novo;
+            eventPublisher.publishEvent(new VitrineAtualizadaEvent(novo.geradoEm()));
+            log.debug("Vitrine atualizada: {} lojas, {} produtos",
+                    novo.lojas().size(), novo.produtosDestaque().size());
+            return novo;
+        } catch (RuntimeException e) {
+            desatualizado = true;
+            if (snapshot == null) {
+                throw e;
+            }
+            // Mantém o snapshot anterior; a próxima verificação tenta de novo
+            log.error("Falha ao atualizar a vitrine: {}", e.getMessage(), e);
+            return snapshot;
+        }
+    }
+
+    // Roda dentro da transação de leitura: o mapeamento para DTO ainda acessa a loja de cada produto
+    private Snapshot montar() {
+        List<LojaListagemDTO> lojas = lojaService.listarResumoLojasRecomendadas(maxLojas);
+
+        List<Produto> destaques = produtoService.listarProdutosDestaque(PageRequest.of(0, maxProdutos)).getContent();
+        if (destaques.isEmpty()) {
+            // Sem produtos marcados como destaque, a vitrine mostra os mais recentes
+            destaques = produtoService.listarProdutos(
+                    new ProdutoService.FiltroProdutos(null, null, null, null), null, maxProdutos).getItens();
+        }
+        List<ProdutoDTO> produtos = destaques.stream().map(mapperUtil::toProdutoDTO).toList();
+
+        return new Snapshot(List.copyOf(lojas), produtos, LocalDateTime.now());
+    }
+
+    public record Snapshot(List<LojaListagemDTO> lojas, List<ProdutoDTO> produtosDestaque, LocalDateTime geradoEm) {
+    }
+}
@@ -0,0 +1,94 @@
+package io.github.brunoeugeniodev.marketplace.util;
+
+import io.github.brunoeugeniodev.marketplace.exception.ApiException;
+import org.springframework.http.HttpStatus;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+// Cursores opacos de paginação: o cliente só devolve o valor recebido em "proximoCursor"
+public final class CursorUtil {
+
+    private CursorUtil() {
+    }
+
+    public static String codificar(long valor) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(Long.toString(valor).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Cursor ausente significa primeira página (0)
+    public static long decodificar(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return 0L;
+        }
+        try {
+            long valor = Long.parseLong(new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8));
+            if (valor < 0) {
+                throw new IllegalArgumentException("Cursor negativo");
+            }
+            return valor;
+        } catch (IllegalArgumentException e) {
+            throw new ApiException("Cursor de paginação inválido", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Cursor de keyset composto (data, id), para listagens ordenadas por data com o id como desempate
+    public static String codificar(LocalDateTime data, long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((data + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Retorna null para cursor ausente (primeira página)
+    public static ChaveData decodificarChaveData(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf('|');
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor sem separador");
+            }
+            return new ChaveData(LocalDateTime.parse(valor.substring(0, separador)),
+                    Long.parseLong(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException e) {
+            throw new ApiException("Cursor de paginação inválido", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    // Cursor de keyset da busca full-text: (pontuação, id) do último resultado da página
+    public static String codificar(float pontuacao, long id) {
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((pontuacao + "|" + id).getBytes(StandardCharsets.UTF_8));
+    }
+
+    // Retorna null para cursor ausente (primeira página)
+    public static ChavePontuacao decodificarChavePontuacao(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String valor = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            int separador = valor.lastIndexOf('|');
+            if (separador < 0) {
+                throw new IllegalArgumentException("Cursor sem separador");
+            }
+            float pontuacao = Float.parseFloat(valor.substring(0, separador));
+            if (!Float.isFinite(pontuacao)) {
+                throw new IllegalArgumentException("Pontuação inválida");
+            }
+            return new ChavePontuacao(pontuacao, Long.parseLong(valor.substring(separador + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException("Cursor de paginação inválido", HttpStatus.BAD_REQUEST);
+        }
+    }
+
+    public record ChaveData(LocalDateTime data, long id) {
+    }
+
+    public record ChavePontuacao(float pontuacao, long id) {
+    }
+}
@@ -0,0 +1,93 @@
+package io.github.brunoeugeniodev.marketplace.util;
+
+import io.github.brunoeugeniodev.marketplace.dto.*;
+import io.github.brunoeugeniodev.marketplace.models.*;
+import org.mapstruct.Builder;
+import org.mapstruct.Mapper;
+import org.mapstruct.Mapping;
+import org.mapstruct.NullValueCheckStrategy;
+import org.mapstruct.ReportingPolicy;
+
+/**
+ * Mapeamentos entidade <-> DTO gerados pelo MapStruct em tempo de compilação (getters/setters simples,
+ * sem reflexão). Use pelo {@link MapperUtil}, que completa os campos que dependem de regra de negócio.
+ * <p>
+ * Os builders do Lombok ficam desligados porque as entidades usam @SuperBuilder; e, como fazia o ModelMapper
+ * com skipNull, valores nulos da origem não sobrescrevem os valores padrão do destino.
+ */
+@Mapper(componentModel = "spring",
+        builder = @Builder(disableBuilder = true),
+        nullValueCheckStrategy = NullValueCheckStrategy.ALWAYS,
+        unmappedTargetPolicy = ReportingPolicy.IGNORE)
+public interface EntidadeMapper {
+
+    // Usuario
+    UsuarioDTO toUsuarioDTO(Usuario usuario);
+
+    Usuario toUsuarioEntity(UsuarioRegisterDTO dto);
+
+    Usuario toUsuarioEntity(UsuarioUpdateDTO dto);
+
+    // Produto
+    @Mapping(target = "lojaId", source = "loja.id")
+    @Mapping(target = "lojaNome", source = "loja.nome")
+    @Mapping(target = "lojaCnpj", source = "loja.cnpj")
+    ProdutoDTO toProdutoDTO(Produto produto);
+
+    Produto toProdutoEntity(ProdutoDTO dto);
+
+    Produto toProdutoEntity(ProdutoCreateDTO dto);
+
+    Produto toProdutoEntity(ProdutoUpdateDTO dto);
+
+    // Loja (dados do proprietário são preenchidos no MapperUtil; a quantidade de produtos não sai daqui,
+    // para não carregar loja.getProdutos() inteira)
+    @Mapping(target = "proprietarioId", ignore = true)
+    @Mapping(target = "proprietarioNome", ignore = true)
+    @Mapping(target = "quantidadeProdutos", ignore = true)
+    LojaDTO toLojaDTO(Loja loja);
+
+    // Listagens (proprietário e quantidade de produtos já vêm da consulta)
+    LojaDTO toLojaDTO(LojaListagemDTO loja);
+
+    Loja toLojaEntity(LojaDTO dto);
+
+    Loja toLojaEntity(LojaCreateDTO dto);
+
+    Loja toLojaEntity(LojaUpdateDTO dto);
+
+    // EnderecoLoja (classe interna da Loja)
+    EnderecoLojaDTO toEnderecoLojaDTO(Loja.EnderecoLoja enderecoLoja);
+
+    Loja.EnderecoLoja toEnderecoLojaEntity(EnderecoLojaDTO dto);
+
+    Loja.EnderecoLoja toEnderecoLojaEntity(EnderecoLojaCreateDTO dto);
+
+    Loja.EnderecoLoja toEnderecoLojaEntity(EnderecoLojaUpdateDTO dto);
+
+    // Endereco (do Usuario)
+    @Mapping(target = "usuarioId", source = "usuario.id")
+    EnderecoDTO toEnderecoDTO(Endereco endereco);
+
+    Endereco toEnderecoEntity(EnderecoDTO dto);
+
+    Endereco toEnderecoEntity(EnderecoCreateDTO dto);
+
+    Endereco toEnderecoEntity(EnderecoUpdateDTO dto);
+
+    // Carrinho
+    @Mapping(target = "usuarioId", source = "usuario.id")
+    @Mapping(target = "usuarioNome", source = "usuario.nome")
+    @Mapping(target = "usuarioEmail", source = "usuario.email")
+    CarrinhoDTO toCarrinhoDTO(Carrinho carrinho);
+
+    @Mapping(target = "carrinhoId", source = "carrinho.id")
+    @Mapping(target = "produtoId", source = "produto.id")
+    @Mapping(target = "produtoNome", source = "produto.nome")
+    @Mapping(target = "produtoDescricao", source = "produto.descricao")
+    @Mapping(target = "produtoPreco", source = "produto.preco")
+    @Mapping(target = "produtoFotoUrl", source = "produto.fotoUrl")
+    @Mapping(target = "produtoQuantidadeDisponivel", source = "produto.quantidade")
+    @Mapping(target = "produtoDisponivel", source = "produto.disponivel")
+    ItemCarrinhoDTO toItemCarrinhoDTO(ItemCarrinho item);
+}
@@ -0,0 +1,71 @@
+package io.github.brunoeugeniodev.marketplace.util;
+
+import io.github.brunoeugeniodev.marketplace.models.Carrinho;
+import io.github.brunoeugeniodev.marketplace.models.ItemCarrinho;
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import org.springframework.util.DigestUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+// ETags fortes para GETs condicionais, calculados a partir de ids e dataAtualizacao das entidades
+// (e de tudo que entra no DTO), sem serializar o corpo da resposta
+public final class EtagUtil {
+
+    private EtagUtil() {
+    }
+
+    // O ProdutoDTO leva nome e CNPJ da loja, então a versão da loja também entra
+    public static String produto(Produto produto) {
+        return de(versaoProduto(produto));
+    }
+
+    public static String produtos(List<Produto> produtos, String proximoCursor) {
+        StringBuilder versao = new StringBuilder(proximoCursor != null ? proximoCursor : "fim");
+        produtos.forEach(produto -> versao.append(';').append(versaoProduto(produto)));
+        return de(versao.toString());
+    }
+
+    // Quantidade de produtos e nome do proprietário aparecem no LojaDTO, mas não mudam a dataAtualizacao da loja
+    public static String loja(Loja loja, long quantidadeProdutos) {
+        return de(loja.getId() + "|" + loja.getDataAtualizacao() + "|" + quantidadeProdutos + "|"
+                + (loja.getUsuario() != null ? loja.getUsuario().getDataAtualizacao() : null));
+    }
+
+    // Pelo conteúdo dos itens: alterar um item não muda a dataAtualizacao do carrinho, e no modo
+    // write-behind o carrinho montado da memória nem tem datas
+    public static String carrinho(Carrinho carrinho) {
+        StringBuilder versao = new StringBuilder(String.valueOf(carrinho.getId()));
+        for (ItemCarrinho item : carrinho.getItens()) {
+            versao.append(';').append(item.getId())
+                    .append('|').append(item.getQuantidade())
+                    .append('|').append(item.getPrecoUnitario())
+                    .append('|').append(versaoProduto(item.getProduto()));
+        }
+        return de(versao.toString());
+    }
+
+    // Para Last-Modified; -1 quando não há data (o Spring ignora o cabeçalho nesse caso)
+    public static long ultimaAlteracao(LocalDateTime... datas) {
+        LocalDateTime maisRecente = null;
+        for (LocalDateTime data : datas) {
+            if (data != null && (maisRecente == null || data.isAfter(maisRecente))) {
+                maisRecente = data;
+            }
+        }
+        return maisRecente != null ? maisRecente.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli() : -1;
+    }
+
+    private static String versaoProduto(Produto produto) {
+        Loja loja = produto.getLoja();
+        return produto.getId() + "|" + produto.getDataAtualizacao() + "|"
+                + (loja != null ? loja.getId() + "@" + loja.getDataAtualizacao() : null);
+    }
+
+    private static String de(String versao) {
+        return "\"" + DigestUtils.md5DigestAsHex(versao.getBytes(StandardCharsets.UTF_8)) + "\"";
+    }
+}
@@ -3,7 +3,6 @@ package io.github.brunoeugeniodev.marketplace.util;
 import io.github.brunoeugeniodev.marketplace.dto.*;
 import io.github.brunoeugeniodev.marketplace.models.*;
 import lombok.RequiredArgsConstructor;
-import org.modelmapper.ModelMapper;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
@@ -13,155 +12,117 @@ import java.util.stream.Collectors;
 @RequiredArgsConstructor
 public class MapperUtil {
 
-    private final ModelMapper modelMapper;
+    private final EntidadeMapper entidadeMapper;
 
     // Usuario
     public UsuarioDTO toUsuarioDTO(Usuario usuario) {
-        UsuarioDTO dto = modelMapper.map(usuario, UsuarioDTO.class);
+        UsuarioDTO dto = entidadeMapper.toUsuarioDTO(usuario);
         return dto;
     }
 
     public Usuario toUsuarioEntity(UsuarioRegisterDTO dto) {
-        Usuario usuario = modelMapper.map(dto, Usuario.class);
+        Usuario usuario = entidadeMapper.toUsuarioEntity(dto);
         usuario.setRoles(List.of("ROLE_USER")); // Todos são USER por padrão
         return usuario;
     }
 
     public Usuario toUsuarioEntity(UsuarioUpdateDTO dto) {
-        Usuario usuario = modelMapper.map(dto, Usuario.class);
+        Usuario usuario = entidadeMapper.toUsuarioEntity(dto);
         return usuario;
     }
 
     // Produto
     public ProdutoDTO toProdutoDTO(Produto produto) {
-        ProdutoDTO dto = modelMapper.map(produto, ProdutoDTO.class);
-        dto.setLojaId(produto.getLoja() != null ? produto.getLoja().getId() : null);
-        dto.setLojaNome(produto.getLoja() != null ? produto.getLoja().getNome() : null);
-        dto.setLojaCnpj(produto.getLoja() != null ? produto.getLoja().getCnpj() : null);
-        return dto;
+        return entidadeMapper.toProdutoDTO(produto);
     }
 
     public Produto toProdutoEntity(ProdutoDTO dto) {
-        return modelMapper.map(dto, Produto.class);
+        return entidadeMapper.toProdutoEntity(dto);
     }
 
     public Produto toProdutoEntity(ProdutoCreateDTO dto) {
-        return modelMapper.map(dto, Produto.class);
+        return entidadeMapper.toProdutoEntity(dto);
     }
 
     public Produto toProdutoEntity(ProdutoUpdateDTO dto) {
-        return modelMapper.map(dto, Produto.class);
+        return entidadeMapper.toProdutoEntity(dto);
     }
 
-    // Loja
+    // Loja: sem a quantidade de produtos, que viria da coleção inteira da entidade. Quem exibe a quantidade
+    // usa a sobrecarga abaixo com o COUNT de LojaService.contarProdutos, ou a listagem agrupada
     public LojaDTO toLojaDTO(Loja loja) {
-        LojaDTO dto = modelMapper.map(loja, LojaDTO.class);
+        LojaDTO dto = entidadeMapper.toLojaDTO(loja);
         if (loja.getUsuario() != null) {
             dto.setProprietarioId(loja.getUsuario().getId());
             dto.setProprietarioNome(loja.getUsuario().getNome());
         }
-        dto.setQuantidadeProdutos(loja.getProdutos() != null ? loja.getProdutos().size() : 0);
-
-        // Converter EnderecoLoja para EnderecoLojaDTO
-        if (loja.getEndereco() != null) {
-            EnderecoLojaDTO enderecoDTO = toEnderecoLojaDTO(loja.getEndereco());
-            dto.setEndereco(enderecoDTO);
-        }
+        return dto;
+    }
 
+    public LojaDTO toLojaDTO(Loja loja, long quantidadeProdutos) {
+        LojaDTO dto = toLojaDTO(loja);
+        dto.setQuantidadeProdutos(Math.toIntExact(quantidadeProdutos));
         return dto;
     }
 
+    public LojaDTO toLojaDTO(LojaListagemDTO loja) {
+        return entidadeMapper.toLojaDTO(loja);
+    }
+
     public Loja toLojaEntity(LojaDTO dto) {
-        return modelMapper.map(dto, Loja.class);
+        return entidadeMapper.toLojaEntity(dto);
     }
 
     public Loja toLojaEntity(LojaCreateDTO dto) {
-        Loja loja = modelMapper.map(dto, Loja.class);
-        // Converter EnderecoLojaCreateDTO para EnderecoLoja
-        if (dto.getEndereco() != null) {
-            Loja.EnderecoLoja endereco = toEnderecoLojaEntity(dto.getEndereco());
-            loja.setEndereco(endereco);
-        }
-        return loja;
+        // O endereço (EnderecoLojaCreateDTO -> EnderecoLoja) é convertido junto
+        return entidadeMapper.toLojaEntity(dto);
     }
 
     public Loja toLojaEntity(LojaUpdateDTO dto) {
-        Loja loja = modelMapper.map(dto, Loja.class);
-        if (dto.getEndereco() != null) {
-            Loja.EnderecoLoja endereco = toEnderecoLojaEntity(dto.getEndereco());
-            loja.setEndereco(endereco);
-        }
-        return loja;
+        return entidadeMapper.toLojaEntity(dto);
     }
 
     // EnderecoLoja (classe interna da Loja)
     public EnderecoLojaDTO toEnderecoLojaDTO(Loja.EnderecoLoja enderecoLoja) {
-        return modelMapper.map(enderecoLoja, EnderecoLojaDTO.class);
+        return entidadeMapper.toEnderecoLojaDTO(enderecoLoja);
     }
 
     public Loja.EnderecoLoja toEnderecoLojaEntity(EnderecoLojaDTO dto) {
-        return modelMapper.map(dto, Loja.EnderecoLoja.class);
+        return entidadeMapper.toEnderecoLojaEntity(dto);
     }
 
     public Loja.EnderecoLoja toEnderecoLojaEntity(EnderecoLojaCreateDTO dto) {
-        return modelMapper.map(dto, Loja.EnderecoLoja.class);
+        return entidadeMapper.toEnderecoLojaEntity(dto);
     }
 
     public Loja.EnderecoLoja toEnderecoLojaEntity(EnderecoLojaUpdateDTO dto) {
-        return modelMapper.map(dto, Loja.EnderecoLoja.class);
+        return entidadeMapper.toEnderecoLojaEntity(dto);
     }
 
     // Endereco (do Usuario)
     public EnderecoDTO toEnderecoDTO(Endereco endereco) {
-        EnderecoDTO dto = modelMapper.map(endereco, EnderecoDTO.class);
-        dto.setUsuarioId(endereco.getUsuario() != null ? endereco.getUsuario().getId() : null);
-        return dto;
+        return entidadeMapper.toEnderecoDTO(endereco);
     }
 
     public Endereco toEnderecoEntity(EnderecoDTO dto) {
-        return modelMapper.map(dto, Endereco.class);
+        return entidadeMapper.toEnderecoEntity(dto);
     }
 
     public Endereco toEnderecoEntity(EnderecoCreateDTO dto) {
-        return modelMapper.map(dto, Endereco.class);
+        return entidadeMapper.toEnderecoEntity(dto);
     }
 
     public Endereco toEnderecoEntity(EnderecoUpdateDTO dto) {
-        return modelMapper.map(dto, Endereco.class);
+        return entidadeMapper.toEnderecoEntity(dto);
     }
 
     // Carrinho
     public CarrinhoDTO mapCarrinhoToDTO(Carrinho carrinho) {
-        CarrinhoDTO dto = modelMapper.map(carrinho, CarrinhoDTO.class);
-        if (carrinho.getUsuario() != null) {
-            dto.setUsuarioId(carrinho.getUsuario().getId());
-            dto.setUsuarioNome(carrinho.getUsuario().getNome());
-            dto.setUsuarioEmail(carrinho.getUsuario().getEmail());
-        }
-
-        // Converter itens
-        if (carrinho.getItens() != null && !carrinho.getItens().isEmpty()) {
-            List<ItemCarrinhoDTO> itensDTO = carrinho.getItens().stream()
-                    .map(this::mapItemCarrinhoToDTO)
-                    .collect(Collectors.toList());
-            dto.setItens(itensDTO);
-        }
-
-        return dto;
+        return entidadeMapper.toCarrinhoDTO(carrinho);
     }
 
     public ItemCarrinhoDTO mapItemCarrinhoToDTO(ItemCarrinho item) {
-        ItemCarrinhoDTO dto = modelMapper.map(item, ItemCarrinhoDTO.class);
-        if (item.getProduto() != null) {
-            dto.setProdutoId(item.getProduto().getId());
-            dto.setProdutoNome(item.getProduto().getNome());
-            dto.setProdutoDescricao(item.getProduto().getDescricao());
-            dto.setProdutoPreco(item.getProduto().getPreco());
-            dto.setProdutoFotoUrl(item.getProduto().getFotoUrl());
-            dto.setProdutoQuantidadeDisponivel(item.getProduto().getQuantidade());
-            dto.setProdutoDisponivel(item.getProduto().isDisponivel());
-        }
-        return dto;
+        return entidadeMapper.toItemCarrinhoDTO(item);
     }
 
     // ItemCarrinhoRequestDTO para ItemCarrinho (opcional, mas útil)
@@ -173,20 +134,35 @@ public class MapperUtil {
         return item;
     }
 
-    // Métodos auxiliares para configuração do ModelMapper (opcional)
-    public void configureModelMapper() {
-        // Configurações específicas se necessário
-        modelMapper.getConfiguration()
-                .setSkipNullEnabled(true)
-                .setAmbiguityIgnored(true);
-
-        // Mapeamentos personalizados podem ser adicionados aqui
-    }
-
     // Listas
     public <S, T> List<T> mapList(List<S> source, Class<T> targetClass) {
         return source.stream()
-                .map(element -> modelMapper.map(element, targetClass))
+                .map(element -> map(element, targetClass))
                 .collect(Collectors.toList());
     }
-}
\ No newline at end of file
+
+    // Despacho explícito por tipo; listas de Loja não trazem proprietário nem quantidade de produtos
+    // (um SELECT por loja): para isso, liste pela consulta agrupada (LojaListagemDTO)
+    private <T> T map(Object source, Class<T> targetClass) {
+        Object dto;
+        if (source instanceof Produto produto && targetClass == ProdutoDTO.class) {
+            dto = entidadeMapper.toProdutoDTO(produto);
+        } else if (source instanceof Loja loja && targetClass == LojaDTO.class) {
+            dto = entidadeMapper.toLojaDTO(loja);
+        } else if (source instanceof LojaListagemDTO loja && targetClass == LojaDTO.class) {
+            dto = entidadeMapper.toLojaDTO(loja);
+        } else if (source instanceof Usuario usuario && targetClass == UsuarioDTO.class) {
+            dto = entidadeMapper.toUsuarioDTO(usuario);
+        } else if (source instanceof Endereco endereco && targetClass == EnderecoDTO.class) {
+            dto = entidadeMapper.toEnderecoDTO(endereco);
+        } else if (source instanceof Carrinho carrinho && targetClass == CarrinhoDTO.class) {
+            dto = entidadeMapper.toCarrinhoDTO(carrinho);
+        } else if (source instanceof ItemCarrinho item && targetClass == ItemCarrinhoDTO.class) {
+            dto = entidadeMapper.toItemCarrinhoDTO(item);
+        } else {
+            throw new IllegalArgumentException("Mapeamento não suportado: "
+                    + source.getClass().getSimpleName() + " -> " + targetClass.getSimpleName());
+        }
+        return targetClass.cast(dto);
+    }
+}
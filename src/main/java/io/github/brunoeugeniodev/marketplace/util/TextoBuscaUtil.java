@@ -0,0 +1,84 @@
+package io.github.brunoeugeniodev.marketplace.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+public final class TextoBuscaUtil {
+
+    private static final Pattern DIACRITICOS = Pattern.compile("\\p{M}+");
+    private static final Pattern SEPARADORES = Pattern.compile("[^a-z0-9]+");
+
+    private static final Set<String> STOPWORDS = Set.of(
+            "a", "o", "as", "os", "e", "de", "da", "do", "das", "dos",
+            "em", "na", "no", "nas", "nos", "um", "uma", "com", "para", "por", "sem"
+    );
+
+    private TextoBuscaUtil() {
+    }
+
+    // Minúsculas e sem acentos: "Câmera Elétrica" -> "camera eletrica"
+    public static String normalizar(String texto) {
+        if (texto == null) {
+            return "";
+        }
+        String decomposto = Normalizer.normalize(texto, Normalizer.Form.NFD);
+        return DIACRITICOS.matcher(decomposto).replaceAll("").toLowerCase(Locale.ROOT).trim();
+    }
+
+    // Quebra o texto em termos normalizados e reduzidos ao radical, sem stopwords
+    public static List<String> tokenizar(String texto) {
+        List<String> termos = new ArrayList<>();
+        for (String token : SEPARADORES.split(normalizar(texto))) {
+            if (token.isEmpty() || STOPWORDS.contains(token)) {
+                continue;
+            }
+            termos.add(radical(token));
+        }
+        return termos;
+    }
+
+    // Stemmer leve para português (redução de plural e de alguns sufixos comuns),
+    // inspirado nas primeiras etapas do RSLP. Opera sobre texto já sem acentos.
+    static String radical(String termo) {
+        if (termo.length() <= 3 || Character.isDigit(termo.charAt(termo.length() - 1))) {
+            return termo;
+        }
+
+        String r = termo;
+
+        // Plural
+        if (r.endsWith("oes") || r.endsWith("aes")) {
+            r = r.substring(0, r.length() - 3) + "ao";
+        } else if (r.endsWith("ais")) {
+            r = r.substring(0, r.length() - 2) + "l";
+        } else if (r.endsWith("uis")) {
+            r = r.substring(0, r.length() - 2) + "l";
+        } else if (r.endsWith("eis")) {
+            r = r.substring(0, r.length() - 3) + "el";
+        } else if (r.endsWith("ns")) {
+            r = r.substring(0, r.length() - 2) + "m";
+        } else if (r.endsWith("res") || r.endsWith("zes")) {
+            r = r.substring(0, r.length() - 2);
+        } else if (r.endsWith("s") && !r.endsWith("ss")) {
+            r = r.substring(0, r.length() - 1);
+        }
+
+        // Sufixos adverbiais e de grau
+        if (r.length() > 7 && r.endsWith("mente")) {
+            r = r.substring(0, r.length() - 5);
+        } else if (r.length() > 6 && (r.endsWith("inho") || r.endsWith("inha"))) {
+            r = r.substring(0, r.length() - 4);
+        }
+
+        // Feminino / vogal temática final
+        if (r.length() > 4 && (r.endsWith("a") || r.endsWith("o") || r.endsWith("e"))) {
+            r = r.substring(0, r.length() - 1);
+        }
+
+        return r;
+    }
+}
@@ -0,0 +1,21 @@
+-- Migração de IDENTITY para sequências (pooled-lo, INCREMENT BY 50), rodada a cada inicialização
+-- depois do DDL do Hibernate (spring.jpa.defer-datasource-initialization=true). Idempotente:
+--  * a coluna id deixa de ser identity, para não existirem dois geradores de id na mesma tabela;
+--  * a sequência só é movida quando o maior id existente passa do último bloco reservado (na primeira
+--    execução, com ids antigos da identity); depois disso o setval não roda, para não disputar com outra
+--    instância que já esteja reservando blocos. 50 = allocationSize dos @SequenceGenerator.
+--    Com pooled-lo o próximo nextval devolve o início de um bloco acima de qualquer id já usado.
+
+ALTER TABLE usuarios ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE enderecos ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE lojas ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE produtos ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE carrinhos ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE itens_carrinho ALTER COLUMN id DROP IDENTITY IF EXISTS;
+
+SELECT setval('usuarios_seq', m) FROM (SELECT MAX(id) AS m FROM usuarios) x WHERE x.m >= (SELECT s.last_value + CASE WHEN s.is_called THEN 50 ELSE 0 END FROM usuarios_seq s);
+SELECT setval('enderecos_seq', m) FROM (SELECT MAX(id) AS m FROM enderecos) x WHERE x.m >= (SELECT s.last_value + CASE WHEN s.is_called THEN 50 ELSE 0 END FROM enderecos_seq s);
+SELECT setval('lojas_seq', m) FROM (SELECT MAX(id) AS m FROM lojas) x WHERE x.m >= (SELECT s.last_value + CASE WHEN s.is_called THEN 50 ELSE 0 END FROM lojas_seq s);
+SELECT setval('produtos_seq', m) FROM (SELECT MAX(id) AS m FROM produtos) x WHERE x.m >= (SELECT s.last_value + CASE WHEN s.is_called THEN 50 ELSE 0 END FROM produtos_seq s);
+SELECT setval('carrinhos_seq', m) FROM (SELECT MAX(id) AS m FROM carrinhos) x WHERE x.m >= (SELECT s.last_value + CASE WHEN s.is_called THEN 50 ELSE 0 END FROM carrinhos_seq s);
+SELECT setval('itens_carrinho_seq', m) FROM (SELECT MAX(id) AS m FROM itens_carrinho) x WHERE x.m >= (SELECT s.last_value + CASE WHEN s.is_called THEN 50 ELSE 0 END FROM itens_carrinho_seq s);
@@ -164,7 +164,8 @@ window.loadCartCount = function() {
         return;
     }
 
-    fetch('/api/carrinho', {
+    // Endpoint leve do contador; o navegador revalida com If-None-Match e recebe 304 se nada mudou
+    fetch('/api/carrinho/contador', {
         method: 'GET',
         headers: {
             'Accept': 'application/json',
@@ -494,6 +495,51 @@ window.checkLoginStatus = async function() {
     updateUserDropdown();
 };
 
+// ================= SUGESTÕES DA BUSCA (autocomplete) =================
+
+window.iniciarSugestoesBusca = function(searchInput) {
+    let datalist = document.getElementById('sugestoes-busca');
+    if (!datalist) {
+        datalist = document.createElement('datalist');
+        datalist.id = 'sugestoes-busca';
+        document.body.appendChild(datalist);
+    }
+    searchInput.setAttribute('list', datalist.id);
+    searchInput.setAttribute('autocomplete', 'off');
+
+    let timer = null;
+    let ultimaConsulta = '';
+
+    searchInput.addEventListener('input', function() {
+        const termo = this.value.trim();
+        clearTimeout(timer);
+
+        if (termo.length < 2) {
+            datalist.innerHTML = '';
+            return;
+        }
+
+        timer = setTimeout(() => {
+            ultimaConsulta = termo;
+            fetch(`/api/busca/sugestoes?q=${encodeURIComponent(termo)}&limite=8`, {
+                headers: { 'Accept': 'application/json' }
+            })
+            .then(response => response.ok ? response.json() : [])
+            .then(sugestoes => {
+                // Ignora respostas de consultas que já foram substituídas
+                if (termo !== ultimaConsulta) return;
+                datalist.innerHTML = '';
+                sugestoes.forEach(sugestao => {
+                    const option = document.createElement('option');
+                    option.value = sugestao.texto;
+                    datalist.appendChild(option);
+                });
+            })
+            .catch(error => console.error('Erro ao carregar sugestões:', error));
+        }, 150);
+    });
+};
+
 // ================= EVENTOS GLOBAIS E INICIALIZAÇÃO =================
 
 document.addEventListener('DOMContentLoaded', function() {
@@ -531,6 +577,8 @@ document.addEventListener('DOMContentLoaded', function() {
                 // deixa o form submeter normalmente
             }
         });
+
+        iniciarSugestoesBusca(searchInput);
     }
 
     // INICIALIZAÇÃO DAS MÁSCARAS
@@ -0,0 +1,84 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import io.github.brunoeugeniodev.marketplace.config.JwtUtil;
+import io.github.brunoeugeniodev.marketplace.config.RoteamentoDataSource;
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.service.UsuarioService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.patch;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * A atualização em massa de preço/estoque grava com um único WITH ... UPDATE: o roteamento precisa
+ * reconhecer isso como escrita e abrir a janela de leitura no primário para o vendedor.
+ * <p>
+ * A réplica configurada aqui fica fora do ar, então todas as leituras vão para o primário e o teste não
+ * depende do atraso de um standby; o que se verifica é só a janela aberta pela escrita.
+ */
+@SpringBootTest(properties = {
+        "datasource.replicas.enabled=true",
+        "datasource.replicas.urls=jdbc:postgresql://localhost:1/marketplace"
+})
+@AutoConfigureMockMvc
+@Import(DadosTeste.class)
+class AtualizacaoEmLoteRoteamentoTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private RoteamentoDataSource roteamentoDataSource;
+
+    private Usuario vendedor;
+    private Produto produto;
+
+    @BeforeEach
+    void criarDados() {
+        vendedor = dados.criarUsuario();
+        Loja loja = dados.criarLoja(vendedor);
+        produto = dados.criarProduto(loja, 10);
+    }
+
+    @AfterEach
+    void limpar() {
+        dados.remover(vendedor);
+    }
+
+    @Test
+    void atualizacaoEmMassaPrendeOVendedorNoPrimario() throws Exception {
+        assertThat(roteamentoDataSource.estado()).containsEntry("usuariosNoPrimario", 0);
+
+        String token = jwtUtil.generateToken(usuarioService.loadUserByUsername(vendedor.getEmail()));
+        mockMvc.perform(patch("/api/minha-loja/produtos")
+                        .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"itens\": [{\"id\": " + produto.getId() + ", \"quantidade\": 11}]}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.atualizados").value(1));
+
+        assertThat(roteamentoDataSource.estado()).containsEntry("usuariosNoPrimario", 1);
+    }
+}
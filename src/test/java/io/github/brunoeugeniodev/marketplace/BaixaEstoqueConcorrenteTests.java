@@ -0,0 +1,99 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.repository.ProdutoRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Muitas threads disputando o mesmo produto pela baixa condicional do ProdutoRepository: cada venda
+ * só acontece se ainda houver saldo, então o total vendido nunca passa do estoque e ele nunca fica negativo.
+ * A vazão de cada rodada (UPDATEs por segundo) vai para o log, para comparar 1, 4, 16 e 32 threads;
+ * com spring.jpa.show-sql ligado os números absolutos são baixos, o que importa é a proporção.
+ */
+@SpringBootTest
+@Import(DadosTeste.class)
+@Slf4j
+class BaixaEstoqueConcorrenteTests {
+
+    private static final long ESTOQUE = 200;
+    private static final int TENTATIVAS_POR_THREAD = 50;
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private Usuario vendedor;
+    private Produto produto;
+
+    @BeforeEach
+    void criarProduto() {
+        vendedor = dados.criarUsuario();
+        produto = dados.criarProduto(dados.criarLoja(vendedor), ESTOQUE);
+    }
+
+    @AfterEach
+    void limpar() {
+        dados.remover(vendedor);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 4, 16, 32})
+    void estoqueNuncaFicaNegativo(int threads) throws Exception {
+        AtomicInteger vendas = new AtomicInteger();
+        AtomicInteger recusas = new AtomicInteger();
+        CountDownLatch largada = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+
+        List<Future<?>> tarefas = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            tarefas.add(executor.submit(() -> {
+                largada.await();
+                for (int i = 0; i < TENTATIVAS_POR_THREAD; i++) {
+                    if (produtoRepository.baixarEstoque(produto.getId(), 1L, 1) == 1) {
+                        vendas.incrementAndGet();
+                    } else {
+                        recusas.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> tarefa : tarefas) {
+            tarefa.get(60, TimeUnit.SECONDS);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+        executor.shutdown();
+
+        int tentativas = threads * TENTATIVAS_POR_THREAD;
+        long esperado = Math.min(ESTOQUE, tentativas);
+        log.info("Baixa de estoque com {} threads: {} tentativas em {} s ({} UPDATEs/s), {} vendas, {} recusas",
+                threads, tentativas, String.format("%.3f", segundos),
+                String.format("%.0f", tentativas / segundos), vendas.get(), recusas.get());
+
+        Produto depois = produtoRepository.findById(produto.getId()).orElseThrow();
+        assertThat(vendas.get()).isEqualTo(esperado);
+        assertThat(vendas.get() + recusas.get()).isEqualTo(tentativas);
+        assertThat(depois.getQuantidade()).isEqualTo(ESTOQUE - esperado).isNotNegative();
+        assertThat(depois.getTotalVendas()).isEqualTo((int) esperado);
+    }
+}
@@ -0,0 +1,107 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import io.github.brunoeugeniodev.marketplace.dto.PaginaCursorDTO;
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.repository.ProdutoRepository;
+import io.github.brunoeugeniodev.marketplace.service.ProdutoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Paginação da busca full-text por keyset (pontuação, id): um produto que entra no índice no meio da
+ * paginação não faz itens se repetirem, e um produto já inativo no banco não encurta a página.
+ */
+@SpringBootTest(properties = "busca.full-text.enabled=true")
+@Import(DadosTeste.class)
+class BuscaProdutosPaginacaoTests {
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private Usuario vendedor;
+    private Loja loja;
+    private String termo;
+
+    @BeforeEach
+    void criarLoja() {
+        vendedor = dados.criarUsuario();
+        loja = dados.criarLoja(vendedor);
+        termo = "pagtermo" + System.nanoTime();
+    }
+
+    @AfterEach
+    void limpar() {
+        dados.remover(vendedor);
+    }
+
+    @Test
+    void produtoNovoNoMeioDaPaginacaoNaoRepeteItens() {
+        // Termo no nome pesa mais que na descrição: duas faixas de pontuação
+        List<Long> esperados = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            esperados.add(criar("Abajur " + termo, null).getId());
+        }
+        for (int i = 0; i < 2; i++) {
+            esperados.add(criar("Abajur comum", "Combina com " + termo).getId());
+        }
+
+        PaginaCursorDTO<Produto> pagina = produtoService.buscarPorTermo(termo, null, 2);
+        assertThat(pagina.getTotal()).isEqualTo(5);
+        List<Long> vistos = new ArrayList<>(ids(pagina));
+
+        // Mesma pontuação dos primeiros e id maior: entra antes do cursor e não desloca as próximas páginas
+        criar("Abajur " + termo, null);
+
+        while (pagina.getProximoCursor() != null) {
+            pagina = produtoService.buscarPorTermo(termo, pagina.getProximoCursor(), 2);
+            vistos.addAll(ids(pagina));
+        }
+
+        assertThat(vistos).containsExactlyInAnyOrderElementsOf(esperados);
+    }
+
+    @Test
+    void produtoInativoNoBancoNaoEncurtaAPagina() {
+        List<Produto> produtos = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            produtos.add(criar("Abajur " + termo, null));
+        }
+        // Desativado só no banco, sem evento: o índice ainda o devolve
+        Produto inativo = produtoRepository.findById(produtos.get(2).getId()).orElseThrow();
+        inativo.setAtivo(false);
+        produtoRepository.save(inativo);
+
+        PaginaCursorDTO<Produto> pagina = produtoService.buscarPorTermo(termo, null, 2);
+
+        assertThat(ids(pagina)).containsExactly(produtos.get(1).getId(), produtos.get(0).getId());
+        assertThat(pagina.getProximoCursor()).isNull();
+    }
+
+    private Produto criar(String nome, String descricao) {
+        Produto produto = dados.novoProduto(loja, 10);
+        produto.setNome(nome);
+        produto.setDescricao(descricao);
+        return produtoService.criarProduto(produto, loja, vendedor);
+    }
+
+    private static List<Long> ids(PaginaCursorDTO<Produto> pagina) {
+        return pagina.getItens().stream().map(Produto::getId).toList();
+    }
+}
@@ -0,0 +1,116 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import io.github.brunoeugeniodev.marketplace.models.Carrinho;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.service.CarrinhoService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * SQL de cada operação do carrinho (modo banco, sem write-behind): o agregado vem numa única consulta
+ * pelo email do principal e a operação só acrescenta a escrita dela, sem recarregar o carrinho.
+ * O cache de segundo nível é esvaziado antes de cada medição, para o produto sempre vir do banco.
+ */
+@SpringBootTest(properties = ContadorSql.PROPRIEDADE)
+@Import(DadosTeste.class)
+class CarrinhoConsultasTests {
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Usuario vendedor;
+    private Usuario comprador;
+    private List<Produto> produtos;
+    private String email;
+
+    @BeforeEach
+    void criarDados() {
+        vendedor = dados.criarUsuario();
+        produtos = dados.criarProdutos(dados.criarLoja(vendedor), 3, 10);
+        comprador = dados.criarUsuario();
+        email = comprador.getEmail();
+        // Cria o carrinho fora da medição
+        carrinhoService.obterCarrinhoCompleto(email);
+    }
+
+    @AfterEach
+    void limpar() {
+        dados.remover(comprador, vendedor);
+    }
+
+    @Test
+    void obterCarrinhoUsaUmaConsulta() {
+        carrinhoService.adicionarItem(email, produtos.get(0).getId(), 1);
+        carrinhoService.adicionarItem(email, produtos.get(1).getId(), 1);
+
+        assertThat(medir(() -> carrinhoService.obterCarrinhoCompleto(email))).containsExactly("select");
+    }
+
+    @Test
+    void adicionarProdutoNovoBuscaSoOProdutoEInsereOItem() {
+        assertThat(medir(() -> carrinhoService.adicionarItem(email, produtos.get(0).getId(), 1)))
+                .containsExactly("select", "select", "insert");
+    }
+
+    @Test
+    void adicionarProdutoQueJaEstaNoCarrinhoSoAtualizaOItem() {
+        carrinhoService.adicionarItem(email, produtos.get(0).getId(), 1);
+
+        assertThat(medir(() -> carrinhoService.adicionarItem(email, produtos.get(0).getId(), 1)))
+                .containsExactly("select", "update");
+    }
+
+    @Test
+    void atualizarQuantidadeUsaUmaConsultaEUmUpdate() {
+        Long itemId = carrinhoService.adicionarItem(email, produtos.get(0).getId(), 1).getItens().get(0).getId();
+
+        assertThat(medir(() -> carrinhoService.atualizarQuantidade(email, itemId, 3)))
+                .containsExactly("select", "update");
+    }
+
+    @Test
+    void removerItemUsaUmaConsultaEUmDelete() {
+        Long itemId = carrinhoService.adicionarItem(email, produtos.get(0).getId(), 1).getItens().get(0).getId();
+
+        assertThat(medir(() -> carrinhoService.removerItem(email, itemId)))
+                .containsExactly("select", "delete");
+    }
+
+    @Test
+    void limparCarrinhoApagaOsItensNumLote() {
+        produtos.forEach(produto -> carrinhoService.adicionarItem(email, produto.getId(), 1));
+
+        assertThat(medir(() -> carrinhoService.limparCarrinho(email)))
+                .containsExactly("select", "delete");
+    }
+
+    private List<String> medir(Supplier<Carrinho> operacao) {
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        List<String> sql;
+        ContadorSql.iniciar();
+        try {
+            operacao.get();
+        } finally {
+            sql = ContadorSql.parar();
+        }
+        return ContadorSql.comandos(sql);
+    }
+}
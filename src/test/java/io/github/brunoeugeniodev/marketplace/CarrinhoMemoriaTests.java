@@ -0,0 +1,100 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import io.github.brunoeugeniodev.marketplace.exception.ResourceNotFoundException;
+import io.github.brunoeugeniodev.marketplace.models.Carrinho;
+import io.github.brunoeugeniodev.marketplace.models.ItemCarrinho;
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.repository.ProdutoRepository;
+import io.github.brunoeugeniodev.marketplace.service.CarrinhoMemoriaStore;
+import io.github.brunoeugeniodev.marketplace.service.CarrinhoService;
+import io.github.brunoeugeniodev.marketplace.service.ProdutoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Carrinho no modo write-behind: produtos que ficaram indisponíveis ou deixaram de existir depois de
+ * entrar no carrinho. A descarga agendada fica desligada na prática para o carrinho só existir na memória.
+ */
+@SpringBootTest(properties = {
+        "carrinho.write-behind.enabled=true",
+        "carrinho.write-behind.intervalo-ms=3600000",
+        "carrinho.write-behind.journal-dir=target/carrinho-journal-testes"
+})
+@Import(DadosTeste.class)
+class CarrinhoMemoriaTests {
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private CarrinhoMemoriaStore carrinhoMemoriaStore;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private Usuario comprador;
+    private Usuario vendedor;
+    private Produto primeiro;
+    private Produto segundo;
+    private String email;
+
+    @BeforeEach
+    void criarDados() {
+        vendedor = dados.criarUsuario();
+        comprador = dados.criarUsuario();
+        Loja loja = dados.criarLoja(vendedor);
+        primeiro = dados.criarProduto(loja, 10);
+        segundo = dados.criarProduto(loja, 10);
+        email = comprador.getEmail();
+
+        carrinhoService.adicionarItem(email, primeiro.getId(), 2);
+        carrinhoService.adicionarItem(email, segundo.getId(), 3);
+    }
+
+    @AfterEach
+    void limpar() {
+        // Grava o carrinho vazio antes de apagar o usuário, para o desligamento não ter o que descarregar
+        carrinhoService.limparCarrinho(email);
+        carrinhoMemoriaStore.descarregar();
+        dados.remover(comprador, vendedor);
+    }
+
+    @Test
+    void atualizarQuantidadeRecusaProdutoInativo() {
+        Produto produto = produtoRepository.findById(primeiro.getId()).orElseThrow();
+        produto.setAtivo(false);
+        produtoRepository.save(produto);
+
+        assertThatThrownBy(() -> carrinhoService.atualizarQuantidade(email, primeiro.getId(), 5))
+                .isInstanceOf(ResourceNotFoundException.class);
+    }
+
+    @Test
+    void produtoApagadoSaiDoCarrinhoEDoContador() {
+        assertThat(carrinhoService.contarItensNoCarrinho(email)).isEqualTo(5);
+
+        produtoService.deletarProduto(primeiro.getId(), vendedor);
+
+        Carrinho carrinho = carrinhoService.obterCarrinhoCompleto(email);
+        assertThat(carrinho.getItens()).extracting(ItemCarrinho::getId).containsExactly(segundo.getId());
+        assertThat(carrinhoService.contarItensNoCarrinho(email)).isEqualTo(3);
+        assertThat(carrinhoMemoriaStore.obter(email).itens())
+                .extracting(CarrinhoMemoriaStore.Item::produtoId)
+                .containsExactly(segundo.getId());
+    }
+}
@@ -0,0 +1,48 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Registra o SQL que o Hibernate prepara na thread do teste, entre {@link #iniciar()} e {@link #parar()}.
+ * Diferente de Statistics.getPrepareStatementCount(), que é global, não conta o que outras threads
+ * (a vitrine agendada, por exemplo) executarem no meio da medição. As chamadas de sequência ficam de fora:
+ * com pooled-lo só um INSERT a cada bloco de 50 ids busca o nextval, então elas não são determinísticas.
+ * <p>
+ * Ligado com {@code @SpringBootTest(properties = ContadorSql.PROPRIEDADE)}.
+ */
+public class ContadorSql implements StatementInspector {
+
+    private static final ThreadLocal<List<String>> REGISTRO = new ThreadLocal<>();
+
+    public static final String PROPRIEDADE =
+            "spring.jpa.properties.hibernate.session_factory.statement_inspector=io.github.brunoeugeniodev.marketplace.ContadorSql";
+
+    public static void iniciar() {
+        REGISTRO.set(new ArrayList<>());
+    }
+
+    public static List<String> parar() {
+        List<String> registrados = REGISTRO.get();
+        REGISTRO.remove();
+        return registrados != null ? registrados : List.of();
+    }
+
+    // Só o comando de cada instrução (select, insert, update, delete), na ordem em que foram preparadas
+    public static List<String> comandos(List<String> sql) {
+        return sql.stream()
+                .map(instrucao -> instrucao.strip().split("\\s+", 2)[0].toLowerCase())
+                .toList();
+    }
+
+    @Override
+    public String inspect(String sql) {
+        List<String> registrados = REGISTRO.get();
+        if (registrados != null && !sql.contains("nextval(")) {
+            registrados.add(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,109 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.repository.LojaRepository;
+import io.github.brunoeugeniodev.marketplace.repository.ProdutoRepository;
+import io.github.brunoeugeniodev.marketplace.repository.UsuarioRepository;
+import io.github.brunoeugeniodev.marketplace.service.UsuarioService;
+import org.springframework.boot.test.context.TestComponent;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Massa de dados dos testes de integração, gravada (e apagada) de verdade no banco: os testes de
+ * concorrência e de contagem de SQL precisam de transações próprias, sem rollback automático.
+ * CPF, CNPJ e e-mail saem de um contador, então os testes não colidem com dados já existentes.
+ * Use com {@code @Import(DadosTeste.class)}.
+ */
+@TestComponent
+public class DadosTeste {
+
+    public static final String SENHA = "senha123";
+
+    private static final AtomicLong SEQUENCIA = new AtomicLong(System.currentTimeMillis() % 10_000_000_000L);
+
+    private final UsuarioRepository usuarioRepository;
+    private final LojaRepository lojaRepository;
+    private final ProdutoRepository produtoRepository;
+    private final UsuarioService usuarioService;
+    private final PasswordEncoder passwordEncoder;
+    private final TransactionTemplate transacao;
+
+    public DadosTeste(UsuarioRepository usuarioRepository,
+                      LojaRepository lojaRepository,
+                      ProdutoRepository produtoRepository,
+                      UsuarioService usuarioService,
+                      PasswordEncoder passwordEncoder,
+                      PlatformTransactionManager transactionManager) {
+        this.usuarioRepository = usuarioRepository;
+        this.lojaRepository = lojaRepository;
+        this.produtoRepository = produtoRepository;
+        this.usuarioService = usuarioService;
+        this.passwordEncoder = passwordEncoder;
+        this.transacao = new TransactionTemplate(transactionManager);
+    }
+
+    public Usuario criarUsuario() {
+        long n = SEQUENCIA.incrementAndGet();
+        Usuario usuario = new Usuario();
+        usuario.setNome("Usuário Teste " + n);
+        usuario.setCpf(String.format("%011d", n % 100_000_000_000L));
+        usuario.setEmail("teste" + n + "@exemplo.com");
+        usuario.setSenha(passwordEncoder.encode(SENHA));
+        usuario.setRoles(new ArrayList<>(List.of("ROLE_USER")));
+        return usuarioRepository.save(usuario);
+    }
+
+    public Loja criarLoja(Usuario dono) {
+        long n = SEQUENCIA.incrementAndGet();
+        Loja loja = new Loja();
+        loja.setNome("Loja Teste " + n);
+        loja.setCnpj(String.format("%014d", n));
+        loja.setUsuario(dono);
+        return lojaRepository.save(loja);
+    }
+
+    public List<Produto> criarProdutos(Loja loja, int quantidadeProdutos, long estoque) {
+        List<Produto> produtos = new ArrayList<>(quantidadeProdutos);
+        for (int i = 0; i < quantidadeProdutos; i++) {
+            produtos.add(novoProduto(loja, estoque));
+        }
+        return produtoRepository.saveAll(produtos);
+    }
+
+    public Produto criarProduto(Loja loja, long estoque) {
+        return criarProdutos(loja, 1, estoque).get(0);
+    }
+
+    // Produto ainda não persistido, para os testes que medem a própria gravação
+    public Produto novoProduto(Loja loja, long estoque) {
+        Produto produto = new Produto();
+        produto.setLoja(loja);
+        produto.setNome("Produto Teste " + SEQUENCIA.incrementAndGet());
+        produto.setPreco(new BigDecimal("19.90"));
+        produto.setQuantidade(estoque);
+        produto.setCategoria("teste");
+        return produto;
+    }
+
+    // Apaga os usuários na ordem dada pelo UsuarioService, com carrinho, lojas, produtos e endereços.
+    // Passe os compradores antes dos vendedores: itens de carrinho apontam para produtos.
+    public void remover(Usuario... usuarios) {
+        transacao.executeWithoutResult(status -> {
+            for (Usuario usuario : usuarios) {
+                if (usuario != null && usuarioRepository.existsById(usuario.getId())) {
+                    usuarioService.deletarUsuario(usuario.getId());
+                    usuarioRepository.flush();
+                }
+            }
+        });
+    }
+}
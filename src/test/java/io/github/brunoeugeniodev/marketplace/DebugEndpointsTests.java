@@ -0,0 +1,84 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import io.github.brunoeugeniodev.marketplace.config.JwtUtil;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.repository.UsuarioRepository;
+import io.github.brunoeugeniodev.marketplace.service.UsuarioService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Endpoints de diagnóstico com estatísticas internas só respondem a administradores.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@Import(DadosTeste.class)
+class DebugEndpointsTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private Usuario usuario;
+    private Usuario admin;
+
+    @BeforeEach
+    void criarUsuarios() {
+        usuario = dados.criarUsuario();
+        admin = dados.criarUsuario();
+        admin.setRoles(new ArrayList<>(List.of("ROLE_USER", "ROLE_ADMIN")));
+        admin = usuarioRepository.save(admin);
+    }
+
+    @AfterEach
+    void limpar() {
+        dados.remover(usuario, admin);
+    }
+
+    @Test
+    void cacheHibernateExigeAdmin() throws Exception {
+        verificarAcessoSoDeAdmin("/api/debug/cache-hibernate");
+    }
+
+    @Test
+    void replicasExigeAdmin() throws Exception {
+        verificarAcessoSoDeAdmin("/api/debug/replicas");
+    }
+
+    private void verificarAcessoSoDeAdmin(String url) throws Exception {
+        mockMvc.perform(get(url))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, "Bearer " + token(usuario)))
+                .andExpect(status().isForbidden());
+        mockMvc.perform(get(url).header(HttpHeaders.AUTHORIZATION, "Bearer " + token(admin)))
+                .andExpect(status().isOk());
+    }
+
+    private String token(Usuario usuario) {
+        return jwtUtil.generateToken(usuarioService.loadUserByUsername(usuario.getEmail()));
+    }
+}
@@ -0,0 +1,134 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import io.github.brunoeugeniodev.marketplace.config.JwtUtil;
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.service.CarrinhoService;
+import io.github.brunoeugeniodev.marketplace.service.UsuarioService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * SQL de cada endpoint de leitura, com open-session-in-view desligado: cada um roda só as consultas
+ * do fetch plan dele (entity graph e COUNTs), sem carga preguiçosa na hora de montar o DTO ou o ETag.
+ * <p>
+ * Cada requisição é feita uma vez antes da medição, com o cache de segundo nível cheio (ela também precisa
+ * responder 200: entidade vinda do cache não pode deixar associação sem carregar), e deixa o principal do JWT
+ * no cache dele. O cache de segundo nível é esvaziado antes de medir, para as entidades sempre virem do banco.
+ */
+@SpringBootTest(properties = ContadorSql.PROPRIEDADE)
+@AutoConfigureMockMvc
+@Import(DadosTeste.class)
+class EndpointConsultasTests {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private JwtUtil jwtUtil;
+
+    @Autowired
+    private UsuarioService usuarioService;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Usuario vendedor;
+    private Usuario comprador;
+    private Loja loja;
+    private List<Produto> produtos;
+
+    @BeforeEach
+    void criarDados() {
+        vendedor = dados.criarUsuario();
+        loja = dados.criarLoja(vendedor);
+        produtos = dados.criarProdutos(loja, 3, 10);
+        comprador = dados.criarUsuario();
+        carrinhoService.adicionarItem(comprador.getEmail(), produtos.get(0).getId(), 1);
+        carrinhoService.adicionarItem(comprador.getEmail(), produtos.get(1).getId(), 2);
+    }
+
+    @AfterEach
+    void limpar() {
+        dados.remover(comprador, vendedor);
+    }
+
+    @Test
+    void produtoPorIdUsaUmaConsulta() throws Exception {
+        assertThat(medir(get("/api/produtos/{id}", produtos.get(0).getId()))).containsExactly("select");
+    }
+
+    @Test
+    void lojaPorIdBuscaALojaComODonoEContaOsProdutos() throws Exception {
+        assertThat(medir(get("/api/lojas/{id}", loja.getId()))).containsExactly("select", "select");
+    }
+
+    @Test
+    void produtosDaLojaUsaUmaConsulta() throws Exception {
+        assertThat(medir(get("/api/lojas/{id}/produtos", loja.getId()))).containsExactly("select");
+    }
+
+    @Test
+    void carrinhoUsaUmaConsulta() throws Exception {
+        assertThat(medir(autenticado(get("/api/carrinho"), comprador))).containsExactly("select");
+    }
+
+    @Test
+    void contadorDoCarrinhoNaoVaiAoBanco() throws Exception {
+        assertThat(medir(autenticado(get("/api/carrinho/contador"), comprador))).isEmpty();
+    }
+
+    @Test
+    void minhaLojaBuscaUsuarioLojaEContagem() throws Exception {
+        assertThat(medir(autenticado(get("/api/minha-loja"), vendedor)))
+                .containsExactly("select", "select", "select");
+    }
+
+    @Test
+    void produtosDaMinhaLojaBuscaUsuarioLojaEProdutos() throws Exception {
+        assertThat(medir(autenticado(get("/api/minha-loja/produtos"), vendedor)))
+                .containsExactly("select", "select", "select");
+    }
+
+    private List<String> medir(MockHttpServletRequestBuilder requisicao) throws Exception {
+        mockMvc.perform(requisicao).andExpect(status().isOk());
+
+        entityManagerFactory.unwrap(SessionFactory.class).getCache().evictAllRegions();
+        List<String> sql;
+        ContadorSql.iniciar();
+        try {
+            mockMvc.perform(requisicao).andExpect(status().isOk());
+        } finally {
+            sql = ContadorSql.parar();
+        }
+        return ContadorSql.comandos(sql);
+    }
+
+    private MockHttpServletRequestBuilder autenticado(MockHttpServletRequestBuilder requisicao, Usuario usuario) {
+        String token = jwtUtil.generateToken(usuarioService.loadUserByUsername(usuario.getEmail()));
+        return requisicao.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.service.CarrinhoService;
+import io.github.brunoeugeniodev.marketplace.service.ProdutoService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Vazão das gravações com ids de sequência (pooled-lo) e batch de JDBC: linhas por segundo na criação
+ * de produtos em lote (o caminho da importação em massa) e nas escritas do carrinho, uma transação
+ * por item. Os números vão para o log para comparar entre versões; com spring.jpa.show-sql ligado os
+ * absolutos são baixos, o que importa é a proporção. O que o teste garante é o agrupamento: cada lote
+ * prepara o INSERT de produto uma vez e manda as linhas em batches pelo mesmo comando (com IDENTITY seria
+ * um comando por linha, para ler a chave gerada).
+ */
+@SpringBootTest(properties = ContadorSql.PROPRIEDADE)
+@Import(DadosTeste.class)
+@Slf4j
+class GravacaoEmLoteTests {
+
+    private static final int PRODUTOS = 2000;
+    private static final int LOTE = 500;
+    private static final int ITENS_CARRINHO = 200;
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private CarrinhoService carrinhoService;
+
+    private Usuario vendedor;
+    private Usuario comprador;
+    private Loja loja;
+
+    @BeforeEach
+    void criarLoja() {
+        vendedor = dados.criarUsuario();
+        loja = dados.criarLoja(vendedor);
+    }
+
+    @AfterEach
+    void limpar() {
+        dados.remover(comprador, vendedor);
+    }
+
+    @Test
+    void criacaoDeProdutosEmLote() {
+        List<List<Produto>> lotes = new ArrayList<>();
+        for (int i = 0; i < PRODUTOS / LOTE; i++) {
+            List<Produto> lote = new ArrayList<>(LOTE);
+            for (int j = 0; j < LOTE; j++) {
+                lote.add(dados.novoProduto(loja, 10));
+            }
+            lotes.add(lote);
+        }
+
+        int gravados = 0;
+        List<String> sql;
+        long inicio = System.nanoTime();
+        ContadorSql.iniciar();
+        try {
+            for (List<Produto> lote : lotes) {
+                gravados += produtoService.criarProdutosEmLote(lote, loja, vendedor);
+            }
+        } finally {
+            sql = ContadorSql.parar();
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        long inserts = ContadorSql.comandos(sql).stream().filter("insert"::equals).count();
+        log.info("Criação de produtos em lote: {} linhas em {} s ({} linhas/s), {} comandos INSERT preparados",
+                gravados, String.format("%.3f", segundos), String.format("%.0f", gravados / segundos), inserts);
+
+        assertThat(gravados).isEqualTo(PRODUTOS);
+        assertThat(inserts).isEqualTo(PRODUTOS / LOTE);
+    }
+
+    @Test
+    void escritasNoCarrinho() {
+        List<Produto> produtos = dados.criarProdutos(loja, ITENS_CARRINHO, 10);
+        comprador = dados.criarUsuario();
+        String email = comprador.getEmail();
+        carrinhoService.obterCarrinhoCompleto(email);
+
+        long inicio = System.nanoTime();
+        for (Produto produto : produtos) {
+            carrinhoService.adicionarItem(email, produto.getId(), 1);
+        }
+        double segundos = (System.nanoTime() - inicio) / 1e9;
+
+        log.info("Escritas no carrinho: {} itens em {} s ({} linhas/s)",
+                ITENS_CARRINHO, String.format("%.3f", segundos), String.format("%.0f", ITENS_CARRINHO / segundos));
+
+        assertThat(carrinhoService.contarItensNoCarrinho(email)).isEqualTo(ITENS_CARRINHO);
+    }
+}
@@ -0,0 +1,75 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import io.github.brunoeugeniodev.marketplace.dto.ImportacaoProdutosDTO;
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.repository.ProdutoRepository;
+import io.github.brunoeugeniodev.marketplace.service.ImportacaoProdutosService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.annotation.Import;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Importação em massa com linhas que só as anotações do ProdutoCreateDTO recusam (nome curto, preço com
+ * três casas): cada uma entra no relatório com o seu número de linha e as demais do mesmo lote são gravadas.
+ */
+@SpringBootTest
+@Import(DadosTeste.class)
+class ImportacaoProdutosTests {
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private ImportacaoProdutosService importacaoProdutosService;
+
+    @Autowired
+    private ProdutoRepository produtoRepository;
+
+    private Usuario vendedor;
+    private Loja loja;
+
+    @BeforeEach
+    void criarLoja() {
+        vendedor = dados.criarUsuario();
+        loja = dados.criarLoja(vendedor);
+    }
+
+    @AfterEach
+    void limpar() {
+        dados.remover(vendedor);
+    }
+
+    @Test
+    void linhaInvalidaNaoDerrubaOLote() throws Exception {
+        String csv = """
+                nome,preco,quantidade
+                Caneca azul,19.90,10
+                ab,10.00,5
+                Caneca verde,19.999,3
+                Caneca branca,25.00,7
+                """;
+
+        ImportacaoProdutosDTO resultado = importacaoProdutosService.importar(loja, vendedor,
+                ImportacaoProdutosService.Formato.CSV,
+                new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(resultado.getLinhasLidas()).isEqualTo(4);
+        assertThat(resultado.getImportados()).isEqualTo(2);
+        assertThat(resultado.getComErro()).isEqualTo(2);
+        assertThat(resultado.getErros())
+                .extracting(ImportacaoProdutosDTO.ErroLinha::getLinha)
+                .containsExactly(3L, 4L);
+        assertThat(resultado.getErros().get(0).getErro()).startsWith("nome: ");
+        assertThat(resultado.getErros().get(1).getErro()).startsWith("preco: ");
+        assertThat(produtoRepository.countByLojaId(loja.getId())).isEqualTo(2);
+    }
+}
@@ -0,0 +1,103 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import io.github.brunoeugeniodev.marketplace.dto.SugestaoDTO;
+import io.github.brunoeugeniodev.marketplace.event.LojaAlteradaEvent;
+import io.github.brunoeugeniodev.marketplace.models.Loja;
+import io.github.brunoeugeniodev.marketplace.models.Produto;
+import io.github.brunoeugeniodev.marketplace.models.Usuario;
+import io.github.brunoeugeniodev.marketplace.repository.LojaRepository;
+import io.github.brunoeugeniodev.marketplace.service.LojaService;
+import io.github.brunoeugeniodev.marketplace.service.ProdutoSearchIndex;
+import io.github.brunoeugeniodev.marketplace.service.ProdutoService;
+import io.github.brunoeugeniodev.marketplace.service.SugestaoBuscaIndex;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Import;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Índices em memória da busca diante da loja: produto de loja desativada sai deles e não volta
+ * quando é editado; a reativação traz de volta os produtos ativos.
+ */
+@SpringBootTest
+@Import(DadosTeste.class)
+class IndicesBuscaLojaTests {
+
+    @Autowired
+    private DadosTeste dados;
+
+    @Autowired
+    private ProdutoService produtoService;
+
+    @Autowired
+    private LojaService lojaService;
+
+    @Autowired
+    private LojaRepository lojaRepository;
+
+    @Autowired
+    private ProdutoSearchIndex produtoSearchIndex;
+
+    @Autowired
+    private SugestaoBuscaIndex sugestaoBuscaIndex;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    private Usuario vendedor;
+    private Loja loja;
+    private Produto produto;
+
+    @BeforeEach
+    void criarProduto() {
+        vendedor = dados.criarUsuario();
+        loja = dados.criarLoja(vendedor);
+        produto = produtoService.criarProduto(dados.novoProduto(loja, 10), loja, vendedor);
+    }
+
+    @AfterEach
+    void limpar() {
+        dados.remover(vendedor);
+    }
+
+    @Test
+    void buscaAcompanhaAtivacaoDaLoja() {
+        assertThat(produtoSearchIndex.buscar(produto.getNome())).contains(produto.getId());
+
+        lojaService.desativarLoja(loja.getId(), vendedor);
+        assertThat(produtoSearchIndex.buscar(produto.getNome())).doesNotContain(produto.getId());
+
+        produtoService.atualizarProduto(produto.getId(), produto, vendedor);
+        assertThat(produtoSearchIndex.buscar(produto.getNome())).doesNotContain(produto.getId());
+
+        reativarLoja();
+        assertThat(produtoSearchIndex.buscar(produto.getNome())).contains(produto.getId());
+    }
+
+    @Test
+    void sugestoesAcompanhamAtivacaoDaLoja() {
+        SugestaoDTO sugestao = new SugestaoDTO(produto.getNome(), "PRODUTO");
+        assertThat(sugestaoBuscaIndex.sugerir(produto.getNome(), 10)).contains(sugestao);
+
+        lojaService.desativarLoja(loja.getId(), vendedor);
+        assertThat(sugestaoBuscaIndex.sugerir(produto.getNome(), 10)).doesNotContain(sugestao);
+
+        produtoService.atualizarProduto(produto.getId(), produto, vendedor);
+        assertThat(sugestaoBuscaIndex.sugerir(produto.getNome(), 10)).doesNotContain(sugestao);
+
+        reativarLoja();
+        assertThat(sugestaoBuscaIndex.sugerir(produto.getNome(), 10)).contains(sugestao);
+    }
+
+    // Não há endpoint de reativação: grava a loja ativa e publica o evento como o LojaService faria
+    private void reativarLoja() {
+        Loja desativada = lojaRepository.findById(loja.getId()).orElseThrow();
+        desativada.setAtivo(true);
+        eventPublisher.publishEvent(LojaAlteradaEvent.de(lojaRepository.save(desativada)));
+    }
+}
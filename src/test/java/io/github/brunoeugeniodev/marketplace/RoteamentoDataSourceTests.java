@@ -0,0 +1,217 @@
+package io.github.brunoeugeniodev.marketplace;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.github.brunoeugeniodev.marketplace.config.RoteamentoDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Roteamento entre primário e réplicas, com pools próprios montados sobre o banco dos testes: cada pool
+ * se identifica pelo application_name, e a transação consulta quem a atendeu.
+ * <p>
+ * Os testes que precisam de uma réplica usam a primeira de datasource.replicas.urls e são ignorados se ela
+ * não for um standby em streaming do primário. O primário no lugar da réplica não entra no rodízio.
+ */
+@SpringBootTest
+class RoteamentoDataSourceTests {
+
+    private static final String PRIMARIO = "teste-primario";
+    private static final String REPLICA = "teste-replica";
+    // Escritas que não alteram nada: a segunda só é reconhecida olhando o corpo do WITH
+    private static final String ESCRITA = "UPDATE produtos SET quantidade = quantidade WHERE id = -1";
+    private static final String ESCRITA_EM_WITH = "WITH alterados AS ("
+            + "UPDATE produtos SET quantidade = quantidade WHERE id = -1 RETURNING id) SELECT count(*) FROM alterados";
+
+    @Autowired
+    private DataSourceProperties propriedades;
+
+    @Value("${datasource.replicas.urls}")
+    private List<String> urlsReplicas;
+
+    private final List<RoteamentoDataSource> roteamentos = new ArrayList<>();
+    private HikariDataSource primario;
+
+    @BeforeEach
+    void criarPrimario() {
+        primario = pool(PRIMARIO, propriedades.determineUrl());
+    }
+
+    @AfterEach
+    void fecharPools() {
+        SecurityContextHolder.clearContext();
+        roteamentos.forEach(RoteamentoDataSource::close);
+        primario.close();
+    }
+
+    @Test
+    void leituraVaiParaAReplicaEEscritaParaOPrimario() {
+        RoteamentoDataSource roteamento = roteamento(urlReplicaEmStreaming(), 2000);
+
+        assertThat(atendidaPor(roteamento, true, null)).isEqualTo(REPLICA);
+        assertThat(atendidaPor(roteamento, false, null)).isEqualTo(PRIMARIO);
+    }
+
+    @Test
+    void soUmaTransacaoQueGravouPrendeOUsuarioNoPrimario() {
+        RoteamentoDataSource roteamento = roteamento(urlReplicaEmStreaming(), 2000);
+        autenticar("comprador@exemplo.com");
+
+        // Sem readOnly, mas sem escrita: as leituras seguintes continuam na réplica
+        atendidaPor(roteamento, false, null);
+        assertThat(atendidaPor(roteamento, true, null)).isEqualTo(REPLICA);
+        assertThat(roteamento.estado()).containsEntry("usuariosNoPrimario", 0);
+
+        atendidaPor(roteamento, false, ESCRITA);
+        assertThat(atendidaPor(roteamento, true, null)).isEqualTo(PRIMARIO);
+        assertThat(roteamento.estado()).containsEntry("usuariosNoPrimario", 1);
+
+        // Outro usuário não é afetado pela janela
+        autenticar("outro@exemplo.com");
+        assertThat(atendidaPor(roteamento, true, null)).isEqualTo(REPLICA);
+    }
+
+    @Test
+    void escritaDentroDeWithPrendeOUsuarioNoPrimario() {
+        RoteamentoDataSource roteamento = roteamento(urlReplicaEmStreaming(), 2000);
+        autenticar("vendedor@exemplo.com");
+
+        atendidaPor(roteamento, false, ESCRITA_EM_WITH);
+        assertThat(atendidaPor(roteamento, true, null)).isEqualTo(PRIMARIO);
+        assertThat(roteamento.estado()).containsEntry("usuariosNoPrimario", 1);
+    }
+
+    @Test
+    void servidorForaDeRecuperacaoNaoEntraNoRodizio() {
+        RoteamentoDataSource roteamento = roteamento(propriedades.determineUrl(), 2000);
+
+        assertThat(atendidaPor(roteamento, true, null)).isEqualTo(PRIMARIO);
+        assertThat(estadoDaReplica(roteamento))
+                .containsEntry("disponivel", false)
+                .containsEntry("motivo", "não está em recuperação");
+    }
+
+    @Test
+    void replicaForaDoArSaiDoRodizioSemExporOErroDoDriver() {
+        RoteamentoDataSource roteamento = roteamento("jdbc:postgresql://localhost:1/marketplace", 2000);
+
+        assertThat(atendidaPor(roteamento, true, null)).isEqualTo(PRIMARIO);
+        assertThat(estadoDaReplica(roteamento))
+                .containsEntry("disponivel", false)
+                .containsEntry("motivo", "falha na verificação");
+    }
+
+    @Test
+    void replicaAtrasadaSaiDoRodizio() throws Exception {
+        String urlReplica = urlReplicaEmStreaming();
+
+        long atrasoMaximoMs = 200;
+        RoteamentoDataSource roteamento = roteamento(urlReplica, atrasoMaximoMs);
+        assertThat(atendidaPor(roteamento, true, null)).isEqualTo(REPLICA);
+
+        HikariDataSource controle = pool("teste-controle", urlReplica);
+        JdbcTemplate replica = new JdbcTemplate(controle);
+        replica.execute("SELECT pg_wal_replay_pause()");
+        try {
+            // Uma transação com xid gera WAL no primário que a réplica pausada não aplica
+            new JdbcTemplate(primario).queryForObject("SELECT txid_current()", Long.class);
+            Thread.sleep(atrasoMaximoMs * 3);
+
+            roteamento.verificarReplicas();
+            assertThat(estadoDaReplica(roteamento))
+                    .containsEntry("disponivel", false)
+                    .containsEntry("motivo", "atraso acima do limite");
+            assertThat(atendidaPor(roteamento, true, null)).isEqualTo(PRIMARIO);
+        } finally {
+            replica.execute("SELECT pg_wal_replay_resume()");
+            controle.close();
+        }
+    }
+
+    // Executa uma transação (com a escrita dada, se houver, por comando preparado como o Hibernate faz)
+    // e devolve o pool que a atendeu
+    private String atendidaPor(RoteamentoDataSource roteamento, boolean readOnly, String escrita) {
+        LazyConnectionDataSourceProxy dataSource = new LazyConnectionDataSourceProxy(roteamento);
+        dataSource.setDefaultAutoCommit(true);
+        dataSource.setDefaultTransactionIsolation(Connection.TRANSACTION_READ_COMMITTED);
+        JdbcTemplate jdbc = new JdbcTemplate(dataSource);
+
+        TransactionTemplate transacao = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        transacao.setReadOnly(readOnly);
+        return transacao.execute(status -> {
+            String nome = jdbc.queryForObject("SELECT current_setting('application_name')", String.class);
+            if (escrita != null) {
+                jdbc.execute(escrita, (PreparedStatementCallback<Boolean>) PreparedStatement::execute);
+            }
+            return nome;
+        });
+    }
+
+    private RoteamentoDataSource roteamento(String urlReplica, long atrasoMaximoMs) {
+        RoteamentoDataSource roteamento = new RoteamentoDataSource(primario, List.of(pool(REPLICA, urlReplica)),
+                atrasoMaximoMs, 5000);
+        roteamentos.add(roteamento);
+        roteamento.verificarReplicas();
+        return roteamento;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> estadoDaReplica(RoteamentoDataSource roteamento) {
+        Map<String, Object> replicas = (Map<String, Object>) roteamento.estado().get("replicas");
+        return (Map<String, Object>) replicas.get(REPLICA);
+    }
+
+    private String urlReplicaEmStreaming() {
+        String url = urlsReplicas.get(0).trim();
+        assumeTrue(replicaEmStreaming(url), "sem réplica em streaming em " + url);
+        return url;
+    }
+
+    private boolean replicaEmStreaming(String url) {
+        try (HikariDataSource dataSource = pool("teste-sonda", url)) {
+            return Boolean.TRUE.equals(new JdbcTemplate(dataSource).queryForObject(
+                    "SELECT pg_is_in_recovery() AND EXISTS "
+                            + "(SELECT 1 FROM pg_stat_wal_receiver WHERE status = 'streaming')", Boolean.class));
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    private HikariDataSource pool(String nome, String url) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(nome);
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(propriedades.determineUsername());
+        dataSource.setPassword(propriedades.determinePassword());
+        dataSource.setMaximumPoolSize(2);
+        dataSource.setConnectionTimeout(500);
+        dataSource.setInitializationFailTimeout(-1);
+        dataSource.addDataSourceProperty("ApplicationName", nome);
+        return dataSource;
+    }
+
+    private static void autenticar(String email) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(email, null, List.of()));
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.brunoeugeniodev.marketplace.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Date;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Limite de tamanho do cache de claims: passando dele, saem primeiro os vencidos e depois os acessados
+ * há mais tempo, até 90% do limite.
+ */
+class JwtClaimsCacheTests {
+
+    private static final int MAXIMO = 10;
+
+    private JwtClaimsCache cache;
+
+    @BeforeEach
+    void criarCache() {
+        cache = new JwtClaimsCache();
+        ReflectionTestUtils.setField(cache, "habilitado", true);
+        ReflectionTestUtils.setField(cache, "maxEntradas", MAXIMO);
+    }
+
+    @Test
+    void passandoDoLimiteSaemOsMenosAcessados() throws Exception {
+        for (int i = 0; i < MAXIMO; i++) {
+            cache.guardar("token-" + i, claims(60_000), 0);
+        }
+        Thread.sleep(5);
+        // Os dois primeiros continuam em uso e sobrevivem à limpeza
+        assertThat(cache.obter("token-0")).isNotNull();
+        assertThat(cache.obter("token-1")).isNotNull();
+
+        cache.guardar("token-novo", claims(60_000), 0);
+
+        assertThat(cache.estatisticas()).containsEntry("entradas", MAXIMO * 9 / 10);
+        assertThat(cache.obter("token-0")).isNotNull();
+        assertThat(cache.obter("token-1")).isNotNull();
+        assertThat(cache.obter("token-novo")).isNotNull();
+        // Os outros oito têm o mesmo instante de acesso: dois deles saíram
+        long restantes = IntStream.range(2, MAXIMO).filter(i -> cache.obter("token-" + i) != null).count();
+        assertThat(restantes).isEqualTo(MAXIMO - 4);
+    }
+
+    @Test
+    void vencidosSaemAntesDosValidos() {
+        for (int i = 0; i < MAXIMO; i++) {
+            cache.guardar("vencido-" + i, claims(i < 5 ? -1_000 : 60_000), 0);
+        }
+
+        cache.guardar("token-novo", claims(60_000), 0);
+
+        assertThat(cache.estatisticas()).containsEntry("entradas", 6);
+        assertThat(cache.obter("vencido-9")).isNotNull();
+    }
+
+    private static Claims claims(long validadeMs) {
+        return Jwts.claims().setSubject("cliente@exemplo.com")
+                .setExpiration(new Date(System.currentTimeMillis() + validadeMs));
+    }
+}
@@ -0,0 +1,114 @@
+package io.github.brunoeugeniodev.marketplace.config;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.userdetails.User;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.security.Key;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tokens verificados por segundo no caminho do JwtAuthenticationFilter, antes e depois de montar
+ * chave e parser uma vez só:
+ * <ul>
+ *   <li>{@code antes}: o JwtUtil antigo, que derivava a chave e criava um parser a cada leitura, e o filtro
+ *   chamava validateToken e depois extractUsername (duas verificações por requisição);</li>
+ *   <li>{@code depois}: uma única parseAndValidate com chave e parser prontos, cache de claims desligado;</li>
+ *   <li>{@code depoisComCache}: o mesmo token repetido com o cache de claims ligado.</li>
+ * </ul>
+ * Rodar numa JVM própria (exec:exec, não exec:java), para a JVM filha do fork herdar o classpath de teste:
+ * <pre>
+ * mvn test-compile exec:exec -Dexec.classpathScope=test -Dexec.executable=java \
+ *     -Dexec.args="-cp %classpath io.github.brunoeugeniodev.marketplace.config.JwtUtilBenchmark"
+ * </pre>
+ * Argumentos da linha de comando do JMH (ex.: {@code -f 3 -wi 5}) vão no fim de exec.args.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class JwtUtilBenchmark {
+
+    private static final String SECRET = "mySecretKeyForJWTGenerationInMarketplaceApplication2024";
+    private static final String ISSUER = "marketplace-api";
+
+    private JwtUtil jwtUtil;
+    private JwtUtil jwtUtilComCache;
+    private String token;
+
+    @Setup
+    public void preparar() {
+        jwtUtil = criarJwtUtil(false);
+        jwtUtilComCache = criarJwtUtil(true);
+        token = jwtUtil.generateToken(new User("cliente@exemplo.com", "x",
+                List.of(new SimpleGrantedAuthority("ROLE_USER"))));
+    }
+
+    @Benchmark
+    public String antes() {
+        // validateToken + extractUsername, cada um com chave e parser novos
+        extrairClaimsComoAntes(token);
+        return extrairClaimsComoAntes(token).getSubject();
+    }
+
+    @Benchmark
+    public String depois() {
+        return jwtUtil.parseAndValidate(token).getSubject();
+    }
+
+    @Benchmark
+    public String depoisComCache() {
+        return jwtUtilComCache.parseAndValidate(token).getSubject();
+    }
+
+    // Cópia do getSigningKey/extractAllClaims de antes da mudança
+    private static Claims extrairClaimsComoAntes(String token) {
+        String key = SECRET;
+        while (key.length() < 32) {
+            key += "0";
+        }
+        Key signingKey = Keys.hmacShaKeyFor(key.getBytes());
+
+        return Jwts.parserBuilder()
+                .setSigningKey(signingKey)
+                .requireIssuer(ISSUER)
+                .build()
+                .parseClaimsJws(token)
+                .getBody();
+    }
+
+    private static JwtUtil criarJwtUtil(boolean cacheHabilitado) {
+        JwtClaimsCache cache = new JwtClaimsCache();
+        ReflectionTestUtils.setField(cache, "habilitado", cacheHabilitado);
+        ReflectionTestUtils.setField(cache, "maxEntradas", 1000);
+
+        JwtUtil jwtUtil = new JwtUtil(cache);
+        ReflectionTestUtils.setField(jwtUtil, "secret", SECRET);
+        ReflectionTestUtils.setField(jwtUtil, "expiration", 86400000L);
+        ReflectionTestUtils.setField(jwtUtil, "refreshExpiration", 604800000L);
+        ReflectionTestUtils.setField(jwtUtil, "issuer", ISSUER);
+        jwtUtil.init();
+        return jwtUtil;
+    }
+
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException {
+        Options opcoes = new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .include(JwtUtilBenchmark.class.getSimpleName())
+                .build();
+        new Runner(opcoes).run();
+    }
+}